@@ -0,0 +1,31 @@
+package com.shopedge.backend.DTO;
+
+import com.shopedge.backend.entities.Role;
+
+/**
+ * Slim, immutable identity of the caller attached to the request by AuthenticationFilter.
+ * Carries only what authorization and the controllers need, never the password hash.
+ */
+public final class AuthenticatedPrincipal {
+    private final Integer userId;
+    private final String username;
+    private final Role role;
+    
+    public AuthenticatedPrincipal(Integer userId, String username, Role role) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+    }
+    
+    public Integer getUserId() {
+        return userId;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public Role getRole() {
+        return role;
+    }
+}
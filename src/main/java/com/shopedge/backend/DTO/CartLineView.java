@@ -0,0 +1,15 @@
+package com.shopedge.backend.DTO;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of one cart line joined with the product fields the cart page shows.
+ */
+public interface CartLineView {
+    Integer getProductId();
+    String getName();
+    String getDescription();
+    BigDecimal getPrice();
+    String getPrimaryImageUrl();
+    Integer getQuantity();
+}
@@ -0,0 +1,87 @@
+package com.shopedge.backend.DTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable, detached view of a product and its images as held in the catalog snapshot.
+ * Safe to share between request threads; never attached to a persistence context.
+ */
+public final class CatalogProduct {
+    private final Integer productId;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final Integer stock;
+    private final Integer categoryId;
+    private final String categoryName;
+    private final List<String> images;
+    
+    public CatalogProduct(Integer productId, String name, String description, BigDecimal price, Integer stock,
+                          Integer categoryId, String categoryName, List<String> images) {
+        this.productId = productId;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.stock = stock;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.images = List.copyOf(images);
+    }
+    
+    public Integer getProductId() {
+        return productId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public Integer getStock() {
+        return stock;
+    }
+    
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+    
+    public String getCategoryName() {
+        return categoryName;
+    }
+    
+    public List<String> getImages() {
+        return images;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CatalogProduct other)) {
+            return false;
+        }
+        return Objects.equals(productId, other.productId)
+                && Objects.equals(name, other.name)
+                && Objects.equals(description, other.description)
+                && Objects.equals(price, other.price)
+                && Objects.equals(stock, other.stock)
+                && Objects.equals(categoryId, other.categoryId)
+                && Objects.equals(categoryName, other.categoryName)
+                && images.equals(other.images);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(productId, name, description, price, stock, categoryId, categoryName, images);
+    }
+}
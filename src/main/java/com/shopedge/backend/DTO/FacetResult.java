@@ -0,0 +1,46 @@
+package com.shopedge.backend.DTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a faceted product query: one page of matches plus counts for each facet value.
+ * Each facet is counted with every other active filter applied but not its own, so the
+ * counts show what the caller would get by changing that one filter.
+ */
+public final class FacetResult {
+    private final int total;
+    private final List<CatalogProduct> products;
+    private final Map<String, Integer> categoryCounts;
+    private final int inStockCount;
+    private final Map<String, Integer> priceRangeCounts;
+    
+    public FacetResult(int total, List<CatalogProduct> products, Map<String, Integer> categoryCounts,
+                       int inStockCount, Map<String, Integer> priceRangeCounts) {
+        this.total = total;
+        this.products = products;
+        this.categoryCounts = categoryCounts;
+        this.inStockCount = inStockCount;
+        this.priceRangeCounts = priceRangeCounts;
+    }
+    
+    public int getTotal() {
+        return total;
+    }
+    
+    public List<CatalogProduct> getProducts() {
+        return products;
+    }
+    
+    public Map<String, Integer> getCategoryCounts() {
+        return categoryCounts;
+    }
+    
+    public int getInStockCount() {
+        return inStockCount;
+    }
+    
+    public Map<String, Integer> getPriceRangeCounts() {
+        return priceRangeCounts;
+    }
+}
@@ -0,0 +1,17 @@
+package com.shopedge.backend.DTO;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of one ordered item joined with the product fields order history shows.
+ */
+public interface OrderLineView {
+    String getOrderId();
+    Integer getProductId();
+    String getName();
+    String getDescription();
+    String getPrimaryImageUrl();
+    Integer getQuantity();
+    BigDecimal getPricePerUnit();
+    BigDecimal getTotalPrice();
+}
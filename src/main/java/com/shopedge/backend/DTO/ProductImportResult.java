@@ -0,0 +1,33 @@
+package com.shopedge.backend.DTO;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk product import: rows written, rows rejected and the first rejection reasons.
+ */
+public final class ProductImportResult {
+    private final int imported;
+    private final int rejected;
+    private final List<String> errors;
+
+    public ProductImportResult(int imported, int rejected, List<String> errors) {
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = List.copyOf(errors);
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return reasons for rejected rows, prefixed with the row number; capped, so may be shorter than rejected
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,27 @@
+package com.shopedge.backend.DTO;
+
+import java.util.List;
+
+/**
+ * One keyset page of products plus the opaque cursor for the page after it.
+ */
+public final class ProductPage {
+    private final List<CatalogProduct> products;
+    private final String nextCursor;
+    
+    public ProductPage(List<CatalogProduct> products, String nextCursor) {
+        this.products = List.copyOf(products);
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<CatalogProduct> getProducts() {
+        return products;
+    }
+    
+    /**
+     * @return cursor for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
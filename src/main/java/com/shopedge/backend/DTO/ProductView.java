@@ -0,0 +1,17 @@
+package com.shopedge.backend.DTO;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of the product columns used by catalog responses, with the category
+ * flattened in. Selecting only these columns avoids loading managed Product entities.
+ */
+public interface ProductView {
+    Integer getProductId();
+    String getName();
+    String getDescription();
+    BigDecimal getPrice();
+    Integer getStock();
+    Integer getCategoryId();
+    String getCategoryName();
+}
@@ -0,0 +1,39 @@
+package com.shopedge.backend.DTO;
+
+import com.shopedge.backend.entities.Role;
+
+import java.time.Instant;
+
+/**
+ * Immutable view of a verified JWT.
+ * Produced once per request by AuthService.verifyToken so callers never re-parse the token.
+ */
+public final class TokenClaims {
+    private final String username;
+    private final Role role;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+    
+    public TokenClaims(String username, Role role, Instant issuedAt, Instant expiresAt) {
+        this.username = username;
+        this.role = role;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public Role getRole() {
+        return role;
+    }
+    
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+    
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
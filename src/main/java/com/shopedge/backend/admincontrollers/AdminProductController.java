@@ -1,9 +1,14 @@
 package com.shopedge.backend.admincontrollers;
 
 
+import com.shopedge.backend.DTO.ProductImportResult;
 import com.shopedge.backend.entities.Product;
 import com.shopedge.backend.adminservices.AdminProductService;
+import com.shopedge.backend.adminservices.ProductImportService;
+import com.shopedge.backend.services.FlashSaleService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,7 +18,7 @@ import java.util.Map;
 /**
  * Admin Product Controller
  * Handles HTTP requests for admin product management operations
- * Provides endpoints for adding and deleting products
+ * Provides endpoints for adding, bulk importing and deleting products and for flash sales
  */
 @RestController
 @CrossOrigin(
@@ -26,9 +31,15 @@ import java.util.Map;
 public class AdminProductController {
 
     private final AdminProductService adminProductService;
+    private final ProductImportService productImportService;
+    private final FlashSaleService flashSaleService;
 
-    public AdminProductController(AdminProductService adminProductService) {
+    public AdminProductController(AdminProductService adminProductService,
+                                  ProductImportService productImportService,
+                                  FlashSaleService flashSaleService) {
         this.adminProductService = adminProductService;
+        this.productImportService = productImportService;
+        this.flashSaleService = flashSaleService;
     }
 
     /**
@@ -91,6 +102,87 @@ public class AdminProductController {
         }
     }
 
+    /**
+     * Bulk import products from a JSON array or CSV body, streamed rather than buffered
+     * POST /admin/products/import
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"})
+    public ResponseEntity<?> importProducts(HttpServletRequest request) {
+        try {
+            MediaType contentType = MediaType.parseMediaType(request.getContentType());
+            ProductImportResult result = MediaType.APPLICATION_JSON.includes(contentType)
+                    ? productImportService.importJson(request.getInputStream())
+                    : productImportService.importCsv(request.getInputStream());
+
+            return ResponseEntity
+                .status(result.getImported() > 0 ? HttpStatus.CREATED : HttpStatus.OK)
+                .body(result);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+
+        } catch (Exception e) {
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Something went wrong while importing products"));
+        }
+    }
+
+    /**
+     * Start a flash sale for a product, or change its limits
+     * POST /admin/products/flash-sale
+     */
+    @PostMapping("/flash-sale")
+    public ResponseEntity<?> enableFlashSale(@RequestBody Map<String, Integer> requestBody) {
+        try {
+            Integer productId = requestBody.get("productId");
+
+            if (productId == null) {
+                return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Product ID is required"));
+            }
+
+            flashSaleService.enable(productId, requestBody.get("maxCheckouts"), requestBody.get("queueCapacity"));
+
+            return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(Map.of("message", "Flash sale enabled"));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * End a product's flash sale
+     * DELETE /admin/products/flash-sale
+     */
+    @DeleteMapping("/flash-sale")
+    public ResponseEntity<?> disableFlashSale(@RequestBody Map<String, Integer> requestBody) {
+        Integer productId = requestBody.get("productId");
+
+        if (productId == null) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", "Product ID is required"));
+        }
+
+        if (!flashSaleService.disable(productId)) {
+            return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "No flash sale running for product " + productId));
+        }
+
+        return ResponseEntity
+            .status(HttpStatus.OK)
+            .body(Map.of("message", "Flash sale disabled"));
+    }
+
     /**
      * Delete existing product
      * DELETE /admin/products/delete
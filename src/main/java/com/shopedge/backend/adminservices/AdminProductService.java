@@ -4,9 +4,12 @@ package com.shopedge.backend.adminservices;
 import com.shopedge.backend.entities.Category;
 import com.shopedge.backend.entities.Product;
 import com.shopedge.backend.entities.ProductImage;
+import com.shopedge.backend.repositories.CatalogVersionRepository;
 import com.shopedge.backend.repositories.CategoryRepository;
 import com.shopedge.backend.repositories.ProductImageRepository;
 import com.shopedge.backend.repositories.ProductRepository;
+import com.shopedge.backend.services.CatalogChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,14 +29,20 @@ public class AdminProductService {
     private final ProductRepository productRepository;
     private final ProductImageRepository productImageRepository;
     private final CategoryRepository categoryRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AdminProductService(
             ProductRepository productRepository,
             ProductImageRepository productImageRepository,
-            CategoryRepository categoryRepository) {
+            CategoryRepository categoryRepository,
+            CatalogVersionRepository catalogVersionRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.productImageRepository = productImageRepository;
         this.categoryRepository = categoryRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -73,6 +82,10 @@ public class AdminProductService {
             throw new IllegalArgumentException("Product stock cannot be negative");
         }
 
+        if (imageUrl == null || imageUrl.trim().isEmpty()) {
+            throw new IllegalArgumentException("Product image URL cannot be empty");
+        }
+
         // Create and populate product entity
         Product product = new Product();
         product.setName(name.trim());
@@ -80,21 +93,22 @@ public class AdminProductService {
         product.setPrice(BigDecimal.valueOf(price));
         product.setStock(stock);
         product.setCategory(categoryOpt.get());
+        product.setPrimaryImageUrl(imageUrl.trim());
         product.setCreatedAt(LocalDateTime.now());
         product.setUpdatedAt(LocalDateTime.now());
 
         // Save product to database
         Product savedProduct = productRepository.save(product);
 
-        // Create and save product image if provided
-        if (imageUrl != null && !imageUrl.trim().isEmpty()) {
-            ProductImage productImage = new ProductImage();
-            productImage.setProduct(savedProduct);
-            productImage.setImageUrl(imageUrl.trim());
-            productImageRepository.save(productImage);
-        } else {
-            throw new IllegalArgumentException("Product image URL cannot be empty");
-        }
+        // Save the product image; it is the first one, so it matches primaryImageUrl
+        ProductImage productImage = new ProductImage();
+        productImage.setProduct(savedProduct);
+        productImage.setImageUrl(imageUrl.trim());
+        productImageRepository.save(productImage);
+
+        // Bump the catalog version with the change and rebuild the snapshot once it commits
+        catalogVersionRepository.increment();
+        eventPublisher.publishEvent(new CatalogChangedEvent(savedProduct.getProductId()));
 
         return savedProduct;
     }
@@ -116,6 +130,9 @@ public class AdminProductService {
             // Delete the product
             productRepository.deleteById(productId);
 
+            catalogVersionRepository.increment();
+            eventPublisher.publishEvent(new CatalogChangedEvent(productId));
+
         } catch (Exception e) {
             throw new RuntimeException("Failed to delete product: " + e.getMessage(), e);
         }
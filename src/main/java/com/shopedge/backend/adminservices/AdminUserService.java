@@ -4,8 +4,12 @@ import com.shopedge.backend.entities.Role;
 import com.shopedge.backend.entities.User;
 import com.shopedge.backend.repositories.JWTTokenRepository;
 import com.shopedge.backend.repositories.UserRepository;
+import com.shopedge.backend.services.AuthService;
+import com.shopedge.backend.services.PrincipalCacheService;
 import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -21,10 +25,15 @@ public class AdminUserService {
 
     private final UserRepository userRepository;
     private final JWTTokenRepository jwtTokenRepository;
+    private final AuthService authService;
+    private final PrincipalCacheService principalCacheService;
 
-    public AdminUserService(UserRepository userRepository, JWTTokenRepository jwtTokenRepository) {
+    public AdminUserService(UserRepository userRepository, JWTTokenRepository jwtTokenRepository,
+                            AuthService authService, PrincipalCacheService principalCacheService) {
         this.userRepository = userRepository;
         this.jwtTokenRepository = jwtTokenRepository;
+        this.authService = authService;
+        this.principalCacheService = principalCacheService;
     }
 
     /**
@@ -43,6 +52,7 @@ public class AdminUserService {
         }
 
         User existingUser = userOptional.get();
+        String previousUsername = existingUser.getUsername();
 
         // Update username if provided
         if (username != null && !username.trim().isEmpty()) {
@@ -90,6 +100,16 @@ public class AdminUserService {
             // Log error but don't fail the operation
             System.err.println("Warning: Failed to delete JWT tokens for user: " + userId);
         }
+        authService.revokeUserTokens(previousUsername);
+
+        // Evict cached tokens and principals once the change is visible to other requests,
+        // otherwise a concurrent lookup could re-cache the pre-commit rows
+        String newUsername = existingUser.getUsername();
+        runAfterCommit(() -> {
+            authService.invalidateUserTokens(userId);
+            principalCacheService.invalidateUser(userId);
+            principalCacheService.invalidate(newUsername);
+        });
 
         // Save and return updated user
         return userRepository.save(existingUser);
@@ -108,4 +128,17 @@ public class AdminUserService {
         return userRepository.findById(userId)
             .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
     }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,406 @@
+package com.shopedge.backend.adminservices;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopedge.backend.DTO.ProductImportResult;
+import com.shopedge.backend.entities.Category;
+import com.shopedge.backend.repositories.CatalogVersionRepository;
+import com.shopedge.backend.repositories.CategoryRepository;
+import com.shopedge.backend.services.CatalogChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bulk product import from a streamed JSON array or CSV body.
+ *
+ * Rows are parsed one at a time and written in chunks, each chunk in its own transaction with
+ * one JDBC batch for products and one for images. Categories are loaded once up front. Invalid
+ * rows are skipped and reported; chunks already committed stay committed if a later one fails.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (name, description, price, stock, category_id, primary_image_url, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IMAGE =
+            "INSERT INTO productimages (product_id, image_url) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryRepository categoryRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public ProductImportService(
+            JdbcTemplate jdbcTemplate,
+            CategoryRepository categoryRepository,
+            CatalogVersionRepository catalogVersionRepository,
+            ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${catalog.import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryRepository = categoryRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Import products from a JSON array of objects with the fields
+     * name, description, price, stock, categoryId and imageUrl
+     * @param input Request body; read once, front to back
+     */
+    public ProductImportResult importJson(InputStream input) {
+        Importer importer = new Importer();
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of products");
+            }
+            while (!importer.isStopped() && parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode node = objectMapper.readTree(parser);
+                importer.accept(field -> {
+                    JsonNode value = node.get(field);
+                    return value == null || value.isNull() ? null : value.asText();
+                });
+            }
+        } catch (JsonProcessingException e) {
+            importer.abort("malformed JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            importer.abort("unreadable JSON: " + e.getMessage());
+        }
+        return importer.finish();
+    }
+
+    /**
+     * Import products from CSV with a header row naming the columns
+     * name, description, price, stock, categoryId and imageUrl (any order, case-insensitive)
+     * @param input Request body in UTF-8; read once, front to back
+     */
+    public ProductImportResult importCsv(InputStream input) {
+        Importer importer = new Importer();
+        try (CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)))) {
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV header row is missing");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            List<String> record;
+            while (!importer.isStopped() && (record = csv.next()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                List<String> fields = record;
+                importer.accept(field -> {
+                    Integer index = columns.get(field.toLowerCase(Locale.ROOT));
+                    return index == null || index >= fields.size() ? null : fields.get(index);
+                });
+            }
+        } catch (IOException e) {
+            importer.abort("unreadable CSV: " + e.getMessage());
+        }
+        return importer.finish();
+    }
+
+    private ImportRow toRow(Function<String, String> fields, Set<Integer> categoryIds) {
+        String name = trimToNull(fields.apply("name"));
+        if (name == null) {
+            throw new IllegalArgumentException("Product name cannot be empty");
+        }
+
+        BigDecimal price = parse(fields.apply("price"), BigDecimal::new, "price");
+        if (price == null || price.signum() <= 0) {
+            throw new IllegalArgumentException("Product price must be greater than 0");
+        }
+
+        Integer stock = parse(fields.apply("stock"), Integer::valueOf, "stock");
+        if (stock == null || stock < 0) {
+            throw new IllegalArgumentException("Product stock cannot be negative");
+        }
+
+        Integer categoryId = parse(fields.apply("categoryId"), Integer::valueOf, "categoryId");
+        if (categoryId == null || !categoryIds.contains(categoryId)) {
+            throw new IllegalArgumentException("Invalid category ID: " + categoryId);
+        }
+
+        String imageUrl = trimToNull(fields.apply("imageUrl"));
+        if (imageUrl == null) {
+            throw new IllegalArgumentException("Product image URL cannot be empty");
+        }
+
+        String description = trimToNull(fields.apply("description"));
+        return new ImportRow(name, description != null ? description : "", price, stock, categoryId, imageUrl);
+    }
+
+    private void writeChunk(List<ImportRow> chunk) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Integer> productIds = insertProducts(chunk, now);
+
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    statement.setInt(1, productIds.get(i));
+                    statement.setString(2, chunk.get(i).imageUrl());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return chunk.size();
+                }
+            });
+
+            // Each committed chunk is a catalog change of its own
+            catalogVersionRepository.increment();
+        });
+    }
+
+    private List<Integer> insertProducts(List<ImportRow> chunk, Timestamp now) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS)) {
+                for (ImportRow row : chunk) {
+                    statement.setString(1, row.name());
+                    statement.setString(2, row.description());
+                    statement.setBigDecimal(3, row.price());
+                    statement.setInt(4, row.stock());
+                    statement.setInt(5, row.categoryId());
+                    statement.setString(6, row.imageUrl());
+                    statement.setTimestamp(7, now);
+                    statement.setTimestamp(8, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                // Keys come back in insert order, one per row
+                List<Integer> ids = new ArrayList<>(chunk.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getInt(1));
+                    }
+                }
+                if (ids.size() != chunk.size()) {
+                    throw new IllegalStateException("Expected " + chunk.size() + " generated keys, got " + ids.size());
+                }
+                return ids;
+            }
+        });
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static <T> T parse(String value, Function<String, T> parser, String field) {
+        String trimmed = trimToNull(value);
+        if (trimmed == null) {
+            return null;
+        }
+        try {
+            return parser.apply(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + trimmed);
+        }
+    }
+
+    /**
+     * State of one import run: the pending chunk, counters and collected errors.
+     */
+    private final class Importer {
+        private final Set<Integer> categoryIds = new HashSet<>();
+        private final List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        private final List<String> errors = new ArrayList<>();
+        private int rowNumber;
+        private int chunkFirstRow;
+        private int imported;
+        private int rejected;
+        private boolean stopped;
+
+        Importer() {
+            for (Category category : categoryRepository.findAll()) {
+                categoryIds.add(category.getCategoryId());
+            }
+        }
+
+        void accept(Function<String, String> fields) {
+            rowNumber++;
+            try {
+                ImportRow row = toRow(fields, categoryIds);
+                if (chunk.isEmpty()) {
+                    chunkFirstRow = rowNumber;
+                }
+                chunk.add(row);
+            } catch (IllegalArgumentException e) {
+                reject(e.getMessage());
+            }
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /**
+         * @return true once a chunk failed to write; the rest of the input is not imported
+         */
+        boolean isStopped() {
+            return stopped;
+        }
+
+        void abort(String reason) {
+            rejected++;
+            addError("Row " + (rowNumber + 1) + ": import stopped, " + reason);
+        }
+
+        ProductImportResult finish() {
+            flush();
+            if (imported > 0) {
+                eventPublisher.publishEvent(new CatalogChangedEvent(null));
+            }
+            logger.info("Product import finished: {} imported, {} rejected", imported, rejected);
+            return new ProductImportResult(imported, rejected, errors);
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                writeChunk(chunk);
+                imported += chunk.size();
+            } catch (RuntimeException e) {
+                // The chunk's transaction rolled back; earlier chunks stay committed
+                logger.warn("Product import stopped at row {}: {}", chunkFirstRow, e.getMessage());
+                stopped = true;
+                rejected += chunk.size();
+                addError("Row " + chunkFirstRow + ": import stopped, write failed: " + e.getMessage());
+            }
+            chunk.clear();
+        }
+
+        private void reject(String reason) {
+            rejected++;
+            addError("Row " + rowNumber + ": " + reason);
+        }
+
+        private void addError(String error) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+
+    private record ImportRow(String name, String description, BigDecimal price, Integer stock,
+                             Integer categoryId, String imageUrl) {
+    }
+
+    /**
+     * Minimal RFC 4180 reader: comma separated, double-quoted fields may contain commas,
+     * line breaks and doubled quotes.
+     */
+    private static final class CsvReader implements AutoCloseable {
+        private final Reader reader;
+        private boolean eof;
+
+        CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return fields of the next record, or null at end of input
+         */
+        List<String> next() throws IOException {
+            if (eof) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            eof = true;
+            if (!any) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.shopedge.backend.config;
+
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Injects the AuthenticatedPrincipal resolved by AuthenticationFilter into handler methods.
+ * Resolves to null on public endpoints, where the filter does not authenticate.
+ */
+public class AuthenticatedPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+    public static final String AUTHENTICATED_USER_ATTRIBUTE = "authenticatedUser";
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthenticatedPrincipal.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return webRequest.getAttribute(AUTHENTICATED_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -1,10 +1,11 @@
 package com.shopedge.backend.controllers;
 
 import com.shopedge.backend.DTO.LoginRequest;
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
 import com.shopedge.backend.entities.User;
 import com.shopedge.backend.services.AuthService;
+import com.shopedge.backend.services.PasswordHashingService;
 import jakarta.servlet.http.Cookie;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -57,6 +58,10 @@ public class AuthController {
             
             return ResponseEntity.ok(responseBody);
             
+        } catch (PasswordHashingService.SaturatedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", e.getMessage()));
@@ -66,12 +71,12 @@ public class AuthController {
     
     @PostMapping("/logout")
     public ResponseEntity<Map<String, String>> logout(
-            HttpServletRequest request,
+            AuthenticatedPrincipal user,
+            @CookieValue(name = "authToken", required = false) String token,
             HttpServletResponse response
     ) {
         try {
-            // Retrieve the authenticated user
-            User user = (User) request.getAttribute("authenticatedUser");
+            // Authenticated user is resolved by the authentication filter
             if (user == null) {
                 return ResponseEntity
                         .status(401)
@@ -79,7 +84,7 @@ public class AuthController {
             }
 
             // Invalidate token in database
-            authService.logout(user);
+            authService.logout(user, token);
 
             // Clear authToken cookie on client
             Cookie cookie = new Cookie("authToken", null);
@@ -102,8 +107,7 @@ public class AuthController {
     }
     
     @GetMapping("/verify")
-    public ResponseEntity<?> verify(HttpServletRequest request) {
-        User user = (User) request.getAttribute("authenticatedUser");
+    public ResponseEntity<?> verify(AuthenticatedPrincipal user) {
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error","Not authenticated"));
         }
@@ -1,9 +1,8 @@
 package com.shopedge.backend.controllers;
 
-import com.shopedge.backend.entities.User;
-import com.shopedge.backend.repositories.UserRepository;
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
 import com.shopedge.backend.services.CartService;
-import jakarta.servlet.http.HttpServletRequest;
+import com.shopedge.backend.services.FlashSaleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -26,23 +25,31 @@ public class CartController {
     private CartService cartService;
     
     @Autowired
-    private UserRepository userRepository;
+    private FlashSaleService flashSaleService;
     
     /**
      * Add product to cart
      * POST /api/cart/add
      */
     @PostMapping("/add")
-    public ResponseEntity<Map<String, Object>> addToCart(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> addToCart(@RequestBody Map<String, Object> request,
+                                                         AuthenticatedPrincipal user) {
         try {
+            if (user == null) {
+                return unauthorized();
+            }
+            
             // Extract request parameters
-            String username = (String) request.get("username");
             Integer productId = (Integer) request.get("productId");
             Integer quantity = request.containsKey("quantity") ? (Integer) request.get("quantity") : 1;
             
-            // Fetch user
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found with username: " + username));
+            // Flash-sale products need a checkout ticket; without one the caller joins the queue
+            if (productId != null && !flashSaleService.hasTicket(productId, user.getUserId())) {
+                FlashSaleService.Admission admission = flashSaleService.admit(productId, user.getUserId());
+                if (admission.status() != FlashSaleService.Status.ADMITTED) {
+                    return ProductController.admissionResponse(admission);
+                }
+            }
             
             // Add to cart
             cartService.addToCart(user.getUserId(), productId, quantity);
@@ -73,11 +80,11 @@ public class CartController {
      * GET /api/cart/items/count
      */
     @GetMapping("/items/count")
-    public ResponseEntity<Map<String, Object>> getCartItemCount(@RequestParam String username) {
+    public ResponseEntity<Map<String, Object>> getCartItemCount(AuthenticatedPrincipal user) {
         try {
-            // Fetch user
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found with username: " + username));
+            if (user == null) {
+                return unauthorized();
+            }
             
             // Get cart count
             Integer cartCount = cartService.getCartItemCount(user.getUserId());
@@ -85,7 +92,7 @@ public class CartController {
             // Response
             Map<String, Object> response = new HashMap<>();
             response.put("cartCount", cartCount);
-            response.put("username", username);
+            response.put("username", user.getUsername());
             
             return ResponseEntity.ok(response);
             
@@ -105,19 +112,15 @@ public class CartController {
      * GET /api/cart/items
      */
     @GetMapping("/items")
-    public ResponseEntity<Map<String, Object>> getCartItems(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> getCartItems(AuthenticatedPrincipal user) {
         try {
-            // Get authenticated user from request attribute (set by authentication filter)
-            User user = (User) request.getAttribute("authenticatedUser");
-            
+            // Authenticated user is resolved by the authentication filter
             if (user == null) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("error", "User not authenticated");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+                return unauthorized();
             }
             
             // Get cart items
-            Map<String, Object> cartItems = cartService.getCartItems(user.getUserId());
+            Map<String, Object> cartItems = cartService.getCartItems(user);
             
             return ResponseEntity.ok(cartItems);
             
@@ -137,17 +140,17 @@ public class CartController {
      * PUT /api/cart/update
      */
     @PutMapping("/update")
-    public ResponseEntity<Map<String, Object>> updateCartItemQuantity(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> updateCartItemQuantity(@RequestBody Map<String, Object> request,
+                                                                      AuthenticatedPrincipal user) {
         try {
+            if (user == null) {
+                return unauthorized();
+            }
+            
             // Extract request parameters
-            String username = (String) request.get("username");
             Integer productId = (Integer) request.get("productId");
             Integer quantity = (Integer) request.get("quantity");
             
-            // Fetch user
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found with username: " + username));
-            
             // Update cart item quantity
             cartService.updateCartItemQuantity(user.getUserId(), productId, quantity);
             
@@ -173,16 +176,16 @@ public class CartController {
      * DELETE /api/cart/delete
      */
     @DeleteMapping("/delete")
-    public ResponseEntity<Map<String, Object>> deleteCartItem(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> deleteCartItem(@RequestBody Map<String, Object> request,
+                                                              AuthenticatedPrincipal user) {
         try {
+            if (user == null) {
+                return unauthorized();
+            }
+            
             // Extract request parameters
-            String username = (String) request.get("username");
             Integer productId = (Integer) request.get("productId");
             
-            // Fetch user
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found with username: " + username));
-            
             // Delete cart item
             cartService.deleteCartItem(user.getUserId(), productId);
             
@@ -202,4 +205,10 @@ public class CartController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+    
+    private ResponseEntity<Map<String, Object>> unauthorized() {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "User not authenticated");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+    }
 }
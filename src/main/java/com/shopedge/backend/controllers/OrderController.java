@@ -1,8 +1,7 @@
 package com.shopedge.backend.controllers;
 
-import com.shopedge.backend.entities.User;
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
 import com.shopedge.backend.services.OrderService;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -27,16 +26,12 @@ public class OrderController {
      * Fetches all successful orders for the authenticated user.
      * This endpoint provides comprehensive order history with product details.
      * 
-     * @param request HttpServletRequest containing the authenticated user details
+     * @param authenticatedUser Principal resolved by the AuthenticationFilter
      * @return ResponseEntity containing the user's role, username, and their orders
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getOrdersForUser(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> getOrdersForUser(AuthenticatedPrincipal authenticatedUser) {
         try {
-            // Retrieve the authenticated user from the request attribute
-            // This is set by the AuthenticationFilter
-            User authenticatedUser = (User) request.getAttribute("authenticatedUser");
-            
             // Handle unauthenticated requests
             if (authenticatedUser == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -63,14 +58,12 @@ public class OrderController {
     
     /**
      * Get order statistics for the authenticated user
-     * @param request HttpServletRequest containing user details
+     * @param authenticatedUser Principal resolved by the AuthenticationFilter
      * @return ResponseEntity with order statistics
      */
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Object>> getOrderStats(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> getOrderStats(AuthenticatedPrincipal authenticatedUser) {
         try {
-            User authenticatedUser = (User) request.getAttribute("authenticatedUser");
-            
             if (authenticatedUser == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "User not authenticated"));
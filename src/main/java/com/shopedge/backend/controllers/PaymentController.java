@@ -1,11 +1,9 @@
 package com.shopedge.backend.controllers;
 
 import com.shopedge.backend.entities.OrderItem;
-import com.shopedge.backend.entities.User;
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
 import com.shopedge.backend.services.PaymentService;
-import com.shopedge.backend.repositories.UserRepository;
 import com.razorpay.RazorpayException;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -29,22 +27,17 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
     
-    @Autowired
-    private UserRepository userRepository;
-    
     /**
      * Create Razorpay Order
      * @param requestBody Map containing totalAmount and cartItems
-     * @param request HttpServletRequest for authenticated user
+     * @param user Principal resolved by the AuthenticationFilter
      * @return ResponseEntity with Razorpay Order ID
      */
     @PostMapping("/create")
     public ResponseEntity<String> createPaymentOrder(
             @RequestBody Map<String, Object> requestBody,
-            HttpServletRequest request) {
+            AuthenticatedPrincipal user) {
         try {
-            // Fetch authenticated user
-            User user = (User) request.getAttribute("authenticatedUser");
             if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("User not authenticated");
@@ -79,6 +72,10 @@ public class PaymentController {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error creating Razorpay order: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            // Not enough stock to reserve for the cart
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -89,16 +86,14 @@ public class PaymentController {
     /**
      * Verify Razorpay Payment
      * @param requestBody Map containing Razorpay payment details
-     * @param request HttpServletRequest for authenticated user
+     * @param user Principal resolved by the AuthenticationFilter
      * @return ResponseEntity with success or failure message
      */
     @PostMapping("/verify")
     public ResponseEntity<String> verifyPayment(
             @RequestBody Map<String, Object> requestBody,
-            HttpServletRequest request) {
+            AuthenticatedPrincipal user) {
         try {
-            // Fetch authenticated user
-            User user = (User) request.getAttribute("authenticatedUser");
             if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("User not authenticated");
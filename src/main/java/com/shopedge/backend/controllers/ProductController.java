@@ -1,20 +1,41 @@
 package com.shopedge.backend.controllers;
 
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopedge.backend.DTO.CatalogProduct;
+import com.shopedge.backend.DTO.FacetResult;
+import com.shopedge.backend.DTO.ProductPage;
 import com.shopedge.backend.entities.Category;
-import com.shopedge.backend.entities.Product;
-import com.shopedge.backend.entities.User;
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
+import com.shopedge.backend.services.FlashSaleService;
+import com.shopedge.backend.services.ProductFacetService;
+import com.shopedge.backend.services.ProductSearchService;
 import com.shopedge.backend.services.ProductService;
+import com.shopedge.backend.services.SuggestionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @CrossOrigin(
@@ -26,31 +47,183 @@ import java.util.Map;
 @RequestMapping("/api/products")
 public class ProductController {
     
+    // The catalog can change at any moment, so clients must revalidate, but a 304 is cheap
+    private static final CacheControl CATALOG_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+    
+    private static final byte[] LISTING_USER_KEY = "{\"user\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LISTING_PRODUCTS_KEY = ",\"products\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LISTING_SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+    
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ProductSearchService productSearchService;
+    
+    @Autowired
+    private SuggestionService suggestionService;
+    
+    @Autowired
+    private ProductFacetService productFacetService;
+    
+    @Autowired
+    private FlashSaleService flashSaleService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${catalog.categories.max-age-seconds:300}")
+    private long categoriesMaxAgeSeconds;
+    
     /**
      * Get products with user authentication and structured response
      * @param category Optional category filter parameter
-     * @param request HttpServletRequest to get authenticated user
+     * @param authenticatedUser Principal resolved by the AuthenticationFilter
      * @return Structured response with user info and products
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getProducts(
+    public ResponseEntity<?> getProducts(
             @RequestParam(required = false) String category,
-            HttpServletRequest request) {
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            AuthenticatedPrincipal authenticatedUser,
+            WebRequest webRequest) {
         try {
-            // Retrieve authenticated user from the request attribute set by the filter
-            User authenticatedUser = (User) request.getAttribute("authenticatedUser");
             if (authenticatedUser == null) {
                 return ResponseEntity.status(401)
                         .body(Map.of("error", "Unauthorized access"));
             }
             
-            // Fetch products based on the category filter
-            List<Product> products = productService.getProductsByCategory(category);
+            // Each encoding is a separate representation, so it gets its own strong ETag
+            boolean gzip = acceptsGzip(acceptEncoding);
+            String eTag = gzip ? catalogETag(authenticatedUser, "gz") : catalogETag(authenticatedUser);
+            
+            // Repeat polls with a current ETag are answered before any catalog or serialization work
+            if (webRequest.checkNotModified(eTag)) {
+                return notModified(eTag);
+            }
+            
+            // Add user info
+            Map<String, String> userInfo = new LinkedHashMap<>();
+            userInfo.put("name", authenticatedUser.getUsername());
+            userInfo.put("role", authenticatedUser.getRole().name());
+            byte[] userJson = objectMapper.writeValueAsBytes(userInfo);
+            
+            // Products come from cached per-product fragments, see ProductJsonCache
+            ByteArrayOutputStream prefix = new ByteArrayOutputStream(userJson.length + 32);
+            prefix.writeBytes(LISTING_USER_KEY);
+            prefix.writeBytes(userJson);
+            prefix.writeBytes(LISTING_PRODUCTS_KEY);
+            byte[] body = productService.renderProductListing(category, prefix.toByteArray(), LISTING_SUFFIX, gzip);
+            
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CATALOG_CACHE_CONTROL)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return response.body(body);
+            
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to render products"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Stream products straight to the response as they are read from the database.
+     * Same JSON shape as GET /api/products, but memory use does not grow with the catalog.
+     * @param category Optional category filter parameter
+     * @param authenticatedUser Principal resolved by the AuthenticationFilter
+     * @return Streaming body with user info and products
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<?> streamProducts(
+            @RequestParam(required = false) String category,
+            AuthenticatedPrincipal authenticatedUser) {
+        if (authenticatedUser == null) {
+            return ResponseEntity.status(401)
+                    .body(Map.of("error", "Unauthorized access"));
+        }
+        
+        // Validate before streaming starts; once output is written the status cannot change
+        Integer categoryId;
+        try {
+            categoryId = productService.findCategoryId(category);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+        
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                
+                generator.writeObjectFieldStart("user");
+                generator.writeStringField("name", authenticatedUser.getUsername());
+                generator.writeStringField("role", authenticatedUser.getRole().name());
+                generator.writeEndObject();
+                
+                generator.writeArrayFieldStart("products");
+                productService.streamProducts(categoryId, product -> {
+                    try {
+                        generator.writeStartObject();
+                        generator.writeNumberField("product_id", product.getProductId());
+                        generator.writeStringField("name", product.getName());
+                        generator.writeStringField("description", product.getDescription());
+                        generator.writeNumberField("price", product.getPrice());
+                        generator.writeNumberField("stock", product.getStock());
+                        generator.writeArrayFieldStart("images");
+                        for (String image : product.getImages()) {
+                            generator.writeString(image);
+                        }
+                        generator.writeEndArray();
+                        generator.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+                
+                generator.writeEndObject();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+    
+    /**
+     * Get one keyset page of products
+     * @param category Optional category filter, only read for the first page
+     * @param sort "id" or "price", only read for the first page
+     * @param cursor Opaque next_cursor from the previous response
+     * @param size Page size, capped server-side
+     * @param authenticatedUser Principal resolved by the AuthenticationFilter
+     * @return Structured response with user info, products and next_cursor (null on the last page)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<Map<String, Object>> getProductPage(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            AuthenticatedPrincipal authenticatedUser) {
+        try {
+            if (authenticatedUser == null) {
+                return ResponseEntity.status(401)
+                        .body(Map.of("error", "Unauthorized access"));
+            }
+            
+            ProductPage page = productService.getProductPage(category, sort, cursor, size);
             
-            // Build the response
             Map<String, Object> response = new HashMap<>();
             
             // Add user info
@@ -59,50 +232,172 @@ public class ProductController {
             userInfo.put("role", authenticatedUser.getRole().name());
             response.put("user", userInfo);
             
-            // Add product details
-            List<Map<String, Object>> productList = new ArrayList<>();
-            for (Product product : products) {
-                Map<String, Object> productDetails = new HashMap<>();
-                productDetails.put("product_id", product.getProductId());
-                productDetails.put("name", product.getName());
-                productDetails.put("description", product.getDescription());
-                productDetails.put("price", product.getPrice());
-                productDetails.put("stock", product.getStock());
-                
-                // Fetch product images
-                List<String> images = productService.getProductImages(product.getProductId());
-                productDetails.put("images", images);
-                
-                productList.add(productDetails);
+            response.put("products", toProductList(page.getProducts()));
+            response.put("next_cursor", page.getNextCursor());
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to load products"));
+        }
+    }
+    
+    /**
+     * Full-text search over product names and descriptions, served from the in-memory index
+     * @param q Search text; each word matches a whole word or the start of one
+     * @param limit Maximum number of results
+     * @param authenticatedUser Principal resolved by the AuthenticationFilter
+     * @return Structured response with user info and ranked products
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            AuthenticatedPrincipal authenticatedUser) {
+        if (authenticatedUser == null) {
+            return ResponseEntity.status(401)
+                    .body(Map.of("error", "Unauthorized access"));
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        // Add user info
+        Map<String, String> userInfo = new HashMap<>();
+        userInfo.put("name", authenticatedUser.getUsername());
+        userInfo.put("role", authenticatedUser.getRole().name());
+        response.put("user", userInfo);
+        
+        response.put("products", toProductList(productSearchService.search(q, limit)));
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Faceted product filtering with counts, served from the catalog snapshot
+     * @param category Categories to include; repeat the parameter for several
+     * @param minPrice Inclusive lower price bound
+     * @param maxPrice Inclusive upper price bound
+     * @param inStock Only products that are in stock
+     * @param offset Index of the first product to return
+     * @param limit Number of products to return
+     * @param authenticatedUser Principal resolved by the AuthenticationFilter
+     * @return Matching products with total and facet counts
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<Map<String, Object>> getFacets(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit,
+            AuthenticatedPrincipal authenticatedUser) {
+        try {
+            if (authenticatedUser == null) {
+                return ResponseEntity.status(401)
+                        .body(Map.of("error", "Unauthorized access"));
             }
             
-            response.put("products", productList);
+            FacetResult result = productFacetService.query(category, minPrice, maxPrice, inStock,
+                    Math.max(0, offset), limit);
+            
+            Map<String, Object> facets = new HashMap<>();
+            facets.put("categories", result.getCategoryCounts());
+            facets.put("in_stock", result.getInStockCount());
+            facets.put("price_ranges", result.getPriceRangeCounts());
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("total", result.getTotal());
+            response.put("products", toProductList(result.getProducts()));
+            response.put("facets", facets);
             return ResponseEntity.ok(response);
             
-        } catch (RuntimeException e) {
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", e.getMessage()));
         }
     }
     
+    /**
+     * Typeahead suggestions for product and category names
+     * @param q Text typed so far
+     * @param limit Maximum number of suggestions
+     * @param authenticatedUser Principal resolved by the AuthenticationFilter
+     * @return Suggestions, best first
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<Map<String, Object>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit,
+            AuthenticatedPrincipal authenticatedUser) {
+        if (authenticatedUser == null) {
+            return ResponseEntity.status(401)
+                    .body(Map.of("error", "Unauthorized access"));
+        }
+        
+        return ResponseEntity.ok(Map.of("suggestions", suggestionService.suggest(q, limit)));
+    }
+    
+    /**
+     * Ask for a checkout ticket for a flash-sale product; queued callers poll this to keep their place
+     * @param productId The product on sale
+     * @param authenticatedUser Principal resolved by the AuthenticationFilter
+     * @return 200 with a ticket, 202 with a queue position, or 429 when the queue is full
+     */
+    @PostMapping("/{productId}/admission")
+    public ResponseEntity<Map<String, Object>> requestAdmission(
+            @PathVariable Integer productId,
+            AuthenticatedPrincipal authenticatedUser) {
+        if (authenticatedUser == null) {
+            return ResponseEntity.status(401)
+                    .body(Map.of("error", "Unauthorized access"));
+        }
+        
+        FlashSaleService.Admission admission = flashSaleService.admit(productId, authenticatedUser.getUserId());
+        return admissionResponse(admission);
+    }
+    
+    /**
+     * Map an admission decision to a response; shared with the cart's flash-sale check
+     */
+    static ResponseEntity<Map<String, Object>> admissionResponse(FlashSaleService.Admission admission) {
+        HttpStatus status = switch (admission.status()) {
+            case ADMITTED -> HttpStatus.OK;
+            case QUEUED -> HttpStatus.ACCEPTED;
+            case REJECTED -> HttpStatus.TOO_MANY_REQUESTS;
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (admission.status() != FlashSaleService.Status.ADMITTED) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds()));
+        }
+        return response.body(Map.of("admission", admission));
+    }
+    
     /**
      * Get single product by ID with authentication
      * @param productId The ID of the product
-     * @param request HttpServletRequest to get authenticated user
+     * @param authenticatedUser Principal resolved by the AuthenticationFilter
      * @return Product details with user info
      */
     @GetMapping("/{productId}")
     public ResponseEntity<Map<String, Object>> getProductById(
             @PathVariable Integer productId,
-            HttpServletRequest request) {
+            AuthenticatedPrincipal authenticatedUser,
+            WebRequest webRequest) {
         try {
             // Check authentication
-            User authenticatedUser = (User) request.getAttribute("authenticatedUser");
             if (authenticatedUser == null) {
                 return ResponseEntity.status(401)
                         .body(Map.of("error", "Unauthorized access"));
             }
             
+            String eTag = catalogETag(authenticatedUser);
+            if (webRequest.checkNotModified(eTag)) {
+                return notModified(eTag);
+            }
+            
             return productService.getProductById(productId)
                     .map(product -> {
                         Map<String, Object> response = new HashMap<>();
@@ -114,16 +409,11 @@ public class ProductController {
                         response.put("user", userInfo);
                         
                         // Add product details
-                        Map<String, Object> productDetails = new HashMap<>();
-                        productDetails.put("product_id", product.getProductId());
-                        productDetails.put("name", product.getName());
-                        productDetails.put("description", product.getDescription());
-                        productDetails.put("price", product.getPrice());
-                        productDetails.put("stock", product.getStock());
-                        productDetails.put("images", productService.getProductImages(productId));
-                        
-                        response.put("product", productDetails);
-                        return ResponseEntity.ok(response);
+                        response.put("product", toProductDetails(product));
+                        return ResponseEntity.ok()
+                                .eTag(eTag)
+                                .cacheControl(CATALOG_CACHE_CONTROL)
+                                .body(response);
                     })
                     .orElse(ResponseEntity.notFound().build());
                     
@@ -134,15 +424,99 @@ public class ProductController {
     }
     
     @GetMapping("/categories")
-    public ResponseEntity<List<Category>> getCategories(HttpServletRequest request) {
-        User authenticatedUser = (User) request.getAttribute("authenticatedUser");
+    public ResponseEntity<List<Category>> getCategories(AuthenticatedPrincipal authenticatedUser,
+                                                        WebRequest webRequest) {
         if (authenticatedUser == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        // Example: return category names, or you can return Category objects
+        // Revalidation with If-None-Match gets a 304 without loading or serializing anything
+        String eTag = productService.getCategoriesETag();
+        CacheControl cacheControl = CacheControl.maxAge(categoriesMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
         List<Category> categories = productService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .body(categories);
+    }
+    
+    /**
+     * Strong ETag for catalog responses: the catalog version plus the caller, since the
+     * response body embeds the caller's name and role
+     */
+    private String catalogETag(AuthenticatedPrincipal user) {
+        int caller = Objects.hash(user.getUserId(), user.getUsername(), user.getRole());
+        return "\"v" + productService.getCatalogVersion() + "-" + Integer.toHexString(caller) + "\"";
+    }
+    
+    private String catalogETag(AuthenticatedPrincipal user, String encoding) {
+        String eTag = catalogETag(user);
+        return eTag.substring(0, eTag.length() - 1) + "-" + encoding + "\"";
+    }
+    
+    /**
+     * Whether the Accept-Encoding header allows gzip. An explicit gzip (or x-gzip) entry
+     * decides on its own; otherwise a wildcard does. Entries with q=0 are refusals.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        accepted = Double.parseDouble(param.substring(2).trim()) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+    
+    private <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CATALOG_CACHE_CONTROL)
+                .build();
+    }
+    
+    private List<Map<String, Object>> toProductList(List<CatalogProduct> products) {
+        List<Map<String, Object>> productList = new ArrayList<>(products.size());
+        for (CatalogProduct product : products) {
+            productList.add(toProductDetails(product));
+        }
+        return productList;
+    }
+    
+    private Map<String, Object> toProductDetails(CatalogProduct product) {
+        Map<String, Object> productDetails = new HashMap<>();
+        productDetails.put("product_id", product.getProductId());
+        productDetails.put("name", product.getName());
+        productDetails.put("description", product.getDescription());
+        productDetails.put("price", product.getPrice());
+        productDetails.put("stock", product.getStock());
+        productDetails.put("images", product.getImages());
+        return productDetails;
     }
-
 }
\ No newline at end of file
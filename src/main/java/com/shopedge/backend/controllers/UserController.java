@@ -3,6 +3,7 @@ package com.shopedge.backend.controllers;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.shopedge.backend.entities.User;
+import com.shopedge.backend.services.PasswordHashingService;
 import com.shopedge.backend.services.UserService;
 
 @RestController
@@ -36,6 +38,10 @@ public class UserController {
 			User registeredUser = userService.registerUser(user);
 			return ResponseEntity.ok(Map.of("message", "User registered successfully", "user", registeredUser));
 			
+		} catch (PasswordHashingService.SaturatedException e) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.header("Retry-After", "1")
+					.body(Map.of("error", e.getMessage()));
 		} catch (RuntimeException e) {
 			return ResponseEntity.badRequest().body (Map.of("error", e.getMessage()));
 		}
@@ -4,7 +4,11 @@ package com.shopedge.backend.entities;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = {
+    // One row per user and product; CartRepository.addQuantity relies on it for its upsert.
+    // CartService.ensureUniqueCartLines adds it on databases where ddl-auto could not.
+    @UniqueConstraint(name = "uk_cart_items_user_product", columnNames = {"user_id", "product_id"})
+})
 public class CartItem {
     
     @Id
@@ -0,0 +1,46 @@
+package com.shopedge.backend.entities;
+
+
+import jakarta.persistence.*;
+
+/**
+ * Single-row counter bumped in the same transaction as every admin catalog change.
+ * Shared through the database so every instance derives the same version, and therefore
+ * the same ETags, for the same catalog content.
+ */
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersion {
+    
+    @Id
+    private Integer id;
+    
+    @Column(nullable = false)
+    private Long version;
+    
+    // Default Constructor
+    public CatalogVersion() {
+    }
+    
+    public CatalogVersion(Integer id, Long version) {
+        this.id = id;
+        this.version = version;
+    }
+    
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+    
+    public void setId(Integer id) {
+        this.id = id;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
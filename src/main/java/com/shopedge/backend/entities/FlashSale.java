@@ -0,0 +1,57 @@
+package com.shopedge.backend.entities;
+
+
+import jakarta.persistence.*;
+
+/**
+ * A product under flash-sale admission control, shared by every node.
+ */
+@Entity
+@Table(name = "flash_sales")
+public class FlashSale {
+    
+    @Id
+    @Column(name = "product_id")
+    private Integer productId;
+    
+    @Column(nullable = false)
+    private int maxCheckouts;
+    
+    @Column(nullable = false)
+    private int queueCapacity;
+    
+    // Constructors
+    public FlashSale() {
+    }
+    
+    public FlashSale(Integer productId, int maxCheckouts, int queueCapacity) {
+        this.productId = productId;
+        this.maxCheckouts = maxCheckouts;
+        this.queueCapacity = queueCapacity;
+    }
+    
+    // Getters and Setters
+    public Integer getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Integer productId) {
+        this.productId = productId;
+    }
+    
+    public int getMaxCheckouts() {
+        return maxCheckouts;
+    }
+    
+    public void setMaxCheckouts(int maxCheckouts) {
+        this.maxCheckouts = maxCheckouts;
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
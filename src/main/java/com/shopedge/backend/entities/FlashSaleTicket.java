@@ -0,0 +1,59 @@
+package com.shopedge.backend.entities;
+
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A checkout slot of a flash sale held by one user. Rows past expiresAt no longer count
+ * against the sale's limit and are deleted by the sweep.
+ */
+@Entity
+@Table(name = "flash_sale_tickets", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_flash_sale_tickets_product_user", columnNames = {"product_id", "user_id"})
+}, indexes = {
+    @Index(name = "idx_flash_sale_tickets_expires_at", columnList = "expires_at")
+})
+public class FlashSaleTicket {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer ticketId;
+    
+    @Column(name = "product_id", nullable = false)
+    private Integer productId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+    
+    @Column(name = "issued_at", nullable = false)
+    private LocalDateTime issuedAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    // Constructors
+    public FlashSaleTicket() {
+    }
+    
+    // Getters
+    public Integer getTicketId() {
+        return ticketId;
+    }
+    
+    public Integer getProductId() {
+        return productId;
+    }
+    
+    public Integer getUserId() {
+        return userId;
+    }
+    
+    public LocalDateTime getIssuedAt() {
+        return issuedAt;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
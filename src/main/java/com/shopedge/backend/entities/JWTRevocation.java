@@ -0,0 +1,86 @@
+package com.shopedge.backend.entities;
+
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Revocation record used in stateless JWT mode.
+ * A row either revokes a single token (tokenHash) or every token issued to a
+ * username up to revokedAt; other nodes pick rows up by polling revokedAt.
+ */
+@Entity
+@Table(name = "jwt_revocations", indexes = {
+    @Index(name = "idx_jwt_revocations_revoked_at", columnList = "revokedAt"),
+    @Index(name = "idx_jwt_revocations_expires_at", columnList = "expiresAt")
+})
+public class JWTRevocation {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer revocationId;
+    
+    @Column(length = 64)
+    private String tokenHash;
+    
+    @Column
+    private String username;
+    
+    @Column(nullable = false)
+    private LocalDateTime revokedAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+    
+    // Constructors
+    public JWTRevocation() {
+    }
+    
+    public JWTRevocation(String tokenHash, String username, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.username = username;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and Setters
+    public Integer getRevocationId() {
+        return revocationId;
+    }
+    
+    public void setRevocationId(Integer revocationId) {
+        this.revocationId = revocationId;
+    }
+    
+    public String getTokenHash() {
+        return tokenHash;
+    }
+    
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public void setUsername(String username) {
+        this.username = username;
+    }
+    
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+    
+    public void setRevokedAt(LocalDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -5,7 +5,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "jwt_tokens")
+@Table(name = "jwt_tokens", indexes = {
+    @Index(name = "idx_jwt_tokens_expires_at", columnList = "expiresAt")
+})
 public class JWTToken {
     
     @Id
@@ -19,6 +21,10 @@ public class JWTToken {
     @Column(nullable = false, length = 1000)
     private String token;
     
+    // Hex SHA-256 of the token; lookups go through this fixed-length unique key
+    @Column(length = 64, unique = true)
+    private String tokenHash;
+    
     @Column(nullable = false)
     private LocalDateTime expiresAt;
     
@@ -64,6 +70,14 @@ public class JWTToken {
         this.token = token;
     }
     
+    public String getTokenHash() {
+        return tokenHash;
+    }
+    
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+    
     public LocalDateTime getExpiresAt() {
         return expiresAt;
     }
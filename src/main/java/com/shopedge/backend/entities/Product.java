@@ -6,7 +6,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+// InnoDB appends the primary key to secondary indexes, so these cover the (price, productId) keyset order
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_price", columnList = "price"),
+    @Index(name = "idx_products_category_price", columnList = "category_id, price")
+})
 public class Product {
     
     @Id
@@ -29,6 +33,10 @@ public class Product {
     @JoinColumn(name = "category_id")
     private Category category;
     
+    // Copy of the first productimages URL, so listings that show one thumbnail skip the image table
+    @Column(name = "primary_image_url", columnDefinition = "TEXT")
+    private String primaryImageUrl;
+    
     @Column(nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
     private LocalDateTime createdAt;
     
@@ -105,6 +113,14 @@ public class Product {
         this.stock = stock;
     }
     
+    public String getPrimaryImageUrl() {
+        return primaryImageUrl;
+    }
+    
+    public void setPrimaryImageUrl(String primaryImageUrl) {
+        this.primaryImageUrl = primaryImageUrl;
+    }
+    
     public Category getCategory() {
         return category;
     }
@@ -1,9 +1,12 @@
 package com.shopedge.backend.filters;
 
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
+import com.shopedge.backend.DTO.TokenClaims;
+import com.shopedge.backend.config.AuthenticatedPrincipalArgumentResolver;
 import com.shopedge.backend.entities.Role;
-import com.shopedge.backend.entities.User;
-import com.shopedge.backend.repositories.UserRepository;
 import com.shopedge.backend.services.AuthService;
+import com.shopedge.backend.services.PrincipalCacheService;
+import com.shopedge.backend.services.RequestLogService;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -15,6 +18,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -28,7 +32,9 @@ public class AuthenticationFilter implements Filter {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationFilter.class);
     
     private final AuthService authService;
-    private final UserRepository userRepository;
+    private final PrincipalCacheService principalCacheService;
+    private final RequestLogService requestLogService;
+    private final RateLimiter rateLimiter;
     
     // Updated to support both development and Docker environments
     private static final String[] ALLOWED_ORIGINS = {
@@ -52,10 +58,15 @@ public class AuthenticationFilter implements Filter {
         "/actuator/health"           // Health check endpoint
     };
     
-    public AuthenticationFilter(AuthService authService, UserRepository userRepository) {
-        System.out.println("AuthenticationFilter Started.");
+    public AuthenticationFilter(AuthService authService, PrincipalCacheService principalCacheService,
+                                RequestLogService requestLogService,
+                                @Value("${ratelimit.rules:}") String rateLimitRules,
+                                @Value("${ratelimit.slots:16384}") int rateLimitSlots) {
+        logger.info("AuthenticationFilter started");
         this.authService = authService;
-        this.userRepository = userRepository;
+        this.principalCacheService = principalCacheService;
+        this.requestLogService = requestLogService;
+        this.rateLimiter = RateLimiter.fromSpec(rateLimitRules, rateLimitSlots);
     }
     
     @Override
@@ -77,64 +88,85 @@ public class AuthenticationFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
         String requestURI = httpRequest.getRequestURI();
-        
-        logger.info("Request URI: {}", requestURI);
+        String method = httpRequest.getMethod();
         
         // Allow unauthenticated paths
         if (Arrays.asList(UNAUTHENTICATED_PATHS).contains(requestURI)) {
-            logger.info("Public endpoint accessed: {}", requestURI);
+            if (isRateLimited(httpResponse, requestURI, RateLimiter.keyForAddress(httpRequest.getRemoteAddr()))) {
+                requestLogService.logRequest(method, requestURI, null, 429, "rate_limited");
+                return;
+            }
             chain.doFilter(request, response);
+            requestLogService.logRequest(method, requestURI, null, httpResponse.getStatus(), "public");
             return;
         }
         
         // Handle preflight (OPTIONS) requests
-        if (httpRequest.getMethod().equalsIgnoreCase("OPTIONS")) {
+        if (method.equalsIgnoreCase("OPTIONS")) {
             setCORSHeaders(httpResponse, httpRequest);
             return;
         }
         
         // Extract and validate the token
         String token = getAuthTokenFromCookies(httpRequest);
-        System.out.println("Extracted Token: " + token);
         
-        if (token == null || !authService.validateToken(token)) {
+        Optional<TokenClaims> claims = token == null ? Optional.empty() : authService.verifyToken(token);
+        if (claims.isEmpty()) {
+            // Failed attempts are throttled by client address, so missing or forged tokens cannot bypass the limit
+            if (isRateLimited(httpResponse, requestURI, RateLimiter.keyForAddress(httpRequest.getRemoteAddr()))) {
+                requestLogService.logRequest(method, requestURI, null, 429, "rate_limited");
+                return;
+            }
+            requestLogService.logRequest(method, requestURI, null, HttpServletResponse.SC_UNAUTHORIZED,
+                    token == null ? "missing_token" : "invalid_token");
             sendErrorResponse(httpResponse, HttpServletResponse.SC_UNAUTHORIZED,
                     "Unauthorized: Invalid or missing token");
             return;
         }
         
         // Extract username and verify user
-        String username = authService.extractUsername(token);
-        Optional<User> userOptional = userRepository.findByUsername(username);
+        String username = claims.get().getUsername();
+        Optional<AuthenticatedPrincipal> principalOptional = principalCacheService.resolve(username);
         
-        if (userOptional.isEmpty()) {
+        if (principalOptional.isEmpty()) {
+            if (isRateLimited(httpResponse, requestURI, RateLimiter.keyForAddress(httpRequest.getRemoteAddr()))) {
+                requestLogService.logRequest(method, requestURI, username, 429, "rate_limited");
+                return;
+            }
+            requestLogService.logRequest(method, requestURI, username, HttpServletResponse.SC_UNAUTHORIZED, "unknown_user");
             sendErrorResponse(httpResponse, HttpServletResponse.SC_UNAUTHORIZED,
                     "Unauthorized: User not found");
             return;
         }
         
         // Get authenticated user and role
-        User authenticatedUser = userOptional.get();
+        AuthenticatedPrincipal authenticatedUser = principalOptional.get();
         Role role = authenticatedUser.getRole();
         
-        logger.info("Authenticated User: {}, Role: {}", authenticatedUser.getUsername(), role);
-        
         // Role-based access control
         if (requestURI.startsWith("/admin/") && role != Role.ADMIN) {
+            requestLogService.logRequest(method, requestURI, username, HttpServletResponse.SC_FORBIDDEN, "admin_required");
             sendErrorResponse(httpResponse, HttpServletResponse.SC_FORBIDDEN,
                     "Forbidden: Admin access required");
             return;
         }
         
         if (requestURI.startsWith("/api/") && role != Role.CUSTOMER && role != Role.ADMIN) {
+            requestLogService.logRequest(method, requestURI, username, HttpServletResponse.SC_FORBIDDEN, "customer_required");
             sendErrorResponse(httpResponse, HttpServletResponse.SC_FORBIDDEN,
                     "Forbidden: Customer access required");
             return;
         }
         
+        if (isRateLimited(httpResponse, requestURI, RateLimiter.keyForUser(authenticatedUser.getUserId()))) {
+            requestLogService.logRequest(method, requestURI, username, 429, "rate_limited");
+            return;
+        }
+        
         // Attach user details to request
-        httpRequest.setAttribute("authenticatedUser", authenticatedUser);
+        httpRequest.setAttribute(AuthenticatedPrincipalArgumentResolver.AUTHENTICATED_USER_ATTRIBUTE, authenticatedUser);
         chain.doFilter(request, response);
+        requestLogService.logRequest(method, requestURI, username, httpResponse.getStatus(), "ok");
     }
     
     // UPDATED: Dynamic CORS headers based on request origin
@@ -156,6 +188,19 @@ public class AuthenticationFilter implements Filter {
         response.setStatus(HttpServletResponse.SC_OK);
     }
     
+    private boolean isRateLimited(HttpServletResponse response, String requestURI, int keyHash)
+            throws IOException {
+        long waitNanos = rateLimiter.tryAcquire(requestURI, keyHash);
+        if (waitNanos == 0) {
+            return false;
+        }
+        // Retry-After is in whole seconds, so round up
+        long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        sendErrorResponse(response, 429, "Too many requests, please retry later");
+        return true;
+    }
+    
     private void sendErrorResponse(HttpServletResponse response, int statusCode, String message)
             throws IOException {
         response.setStatus(statusCode);
@@ -0,0 +1,139 @@
+package com.shopedge.backend.filters;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Token-bucket rate limiter with one bucket table per path prefix.
+ *
+ * Buckets live in fixed primitive arrays indexed by a hash of the caller key and are
+ * guarded by a small set of striped locks, so checking a request allocates nothing.
+ * Keys that hash to the same slot share a bucket, which can only make the limit stricter.
+ *
+ * Rules are configured as "prefix=ratePerSecond/burst" pairs separated by commas;
+ * the longest matching prefix wins.
+ */
+public class RateLimiter {
+
+    private static final long MICROS_PER_TOKEN = 1_000_000L;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int LOCK_STRIPES = 64;
+
+    private final BucketTable[] tables;
+
+    private RateLimiter(BucketTable[] tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Build a limiter from a rule specification
+     * @param spec Rules such as "/api/products=20/40,/api=50/100"
+     * @param slots Buckets per rule, rounded up to a power of two
+     */
+    public static RateLimiter fromSpec(String spec, int slots) {
+        List<BucketTable> parsed = new ArrayList<>();
+        if (spec != null && !spec.isBlank()) {
+            int tableSize = Integer.highestOneBit(Math.max(slots, LOCK_STRIPES) - 1) << 1;
+            for (String rule : spec.split(",")) {
+                String trimmed = rule.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int eq = trimmed.indexOf('=');
+                int slash = trimmed.indexOf('/', eq);
+                if (eq <= 0 || slash < 0) {
+                    throw new IllegalArgumentException("Invalid rate limit rule: " + trimmed);
+                }
+                String prefix = trimmed.substring(0, eq).trim();
+                long ratePerSecond = Long.parseLong(trimmed.substring(eq + 1, slash).trim());
+                long burst = Long.parseLong(trimmed.substring(slash + 1).trim());
+                if (ratePerSecond <= 0 || burst <= 0) {
+                    throw new IllegalArgumentException("Rate and burst must be positive: " + trimmed);
+                }
+                parsed.add(new BucketTable(prefix, ratePerSecond, burst, tableSize));
+            }
+        }
+        parsed.sort(Comparator.comparingInt((BucketTable table) -> table.prefix.length()).reversed());
+        return new RateLimiter(parsed.toArray(new BucketTable[0]));
+    }
+
+    /**
+     * Take one token for the caller on the given path
+     * @param path Request URI
+     * @param keyHash Hash of the caller key, see keyForUser and keyForAddress
+     * @return 0 if the request is allowed, otherwise nanoseconds until a token is available
+     */
+    public long tryAcquire(String path, int keyHash) {
+        for (BucketTable table : tables) {
+            if (path.startsWith(table.prefix)) {
+                return table.tryAcquire(keyHash, System.nanoTime());
+            }
+        }
+        return 0;
+    }
+
+    public static int keyForUser(int userId) {
+        return mix(userId);
+    }
+
+    public static int keyForAddress(String address) {
+        // Offset so an address never lands on the same key as a user id with the same hash
+        return mix(address.hashCode() ^ 0x9E3779B9);
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static final class BucketTable {
+        private final String prefix;
+        private final long ratePerSecond;
+        private final long capacityMicros;
+        private final int mask;
+        private final long[] tokensMicros;
+        private final long[] lastRefillNanos;
+        private final Object[] locks;
+
+        BucketTable(String prefix, long ratePerSecond, long burst, int size) {
+            this.prefix = prefix;
+            this.ratePerSecond = ratePerSecond;
+            this.capacityMicros = burst * MICROS_PER_TOKEN;
+            this.mask = size - 1;
+            this.tokensMicros = new long[size];
+            this.lastRefillNanos = new long[size];
+            this.locks = new Object[LOCK_STRIPES];
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                locks[i] = new Object();
+            }
+        }
+
+        long tryAcquire(int keyHash, long now) {
+            int slot = keyHash & mask;
+            synchronized (locks[slot & (LOCK_STRIPES - 1)]) {
+                long last = lastRefillNanos[slot];
+                long tokens;
+                if (last == 0) {
+                    tokens = capacityMicros;
+                } else {
+                    // Cap elapsed time at one full refill so the multiplication cannot overflow
+                    long elapsed = Math.min(now - last, capacityMicros * 1000 / ratePerSecond);
+                    tokens = Math.min(capacityMicros, tokensMicros[slot] + elapsed * ratePerSecond / 1000);
+                }
+                lastRefillNanos[slot] = now;
+
+                if (tokens >= MICROS_PER_TOKEN) {
+                    tokensMicros[slot] = tokens - MICROS_PER_TOKEN;
+                    return 0;
+                }
+                tokensMicros[slot] = tokens;
+                return (MICROS_PER_TOKEN - tokens) * NANOS_PER_SECOND / (ratePerSecond * MICROS_PER_TOKEN) + 1;
+            }
+        }
+    }
+}
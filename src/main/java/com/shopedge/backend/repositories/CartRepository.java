@@ -1,5 +1,6 @@
 package com.shopedge.backend.repositories;
 
+import com.shopedge.backend.DTO.CartLineView;
 import com.shopedge.backend.entities.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -25,6 +26,60 @@ public interface CartRepository extends JpaRepository<CartItem, Integer> {
            "WHERE c.user.userId = :userId")
     List<CartItem> findCartItemsWithProductDetails(@Param("userId") Integer userId);
     
+    @Query("SELECT p.productId AS productId, p.name AS name, p.description AS description, " +
+           "p.price AS price, p.primaryImageUrl AS primaryImageUrl, c.quantity AS quantity " +
+           "FROM CartItem c JOIN c.product p " +
+           "WHERE c.user.userId = :userId ORDER BY c.id")
+    List<CartLineView> findCartLines(@Param("userId") Integer userId);
+    
+    /**
+     * Add to a cart line in one statement, creating it if needed, as long as the product's stock
+     * covers the line's resulting quantity.
+     * Race-free through the (user_id, product_id) unique key.
+     * @return 0 if the product does not exist or has too little stock, otherwise 1 or 2 (insert or update)
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO cart_items (user_id, product_id, quantity) " +
+                   "SELECT :userId, p.product_id, :quantity FROM products p " +
+                   "WHERE p.product_id = :productId AND p.stock >= :quantity + COALESCE(" +
+                   "(SELECT c.quantity FROM cart_items c WHERE c.user_id = :userId AND c.product_id = :productId), 0) " +
+                   "ON DUPLICATE KEY UPDATE quantity = cart_items.quantity + :quantity", nativeQuery = true)
+    int addQuantity(@Param("userId") Integer userId, @Param("productId") Integer productId,
+                    @Param("quantity") Integer quantity);
+    
+    @Query(value = "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() " +
+                   "AND table_name = 'cart_items' AND index_name = 'uk_cart_items_user_product'", nativeQuery = true)
+    long countUniqueLineKeys();
+    
+    @Modifying
+    @Transactional
+    @Query(value = "ALTER TABLE cart_items ADD CONSTRAINT uk_cart_items_user_product UNIQUE (user_id, product_id)",
+           nativeQuery = true)
+    void addUniqueLineKey();
+    
+    /**
+     * Fold duplicate (user_id, product_id) lines into the oldest one, summing their quantities
+     * @return number of duplicate rows removed
+     */
+    @Transactional
+    default int mergeDuplicateLines() {
+        sumDuplicateLinesIntoFirst();
+        return deleteDuplicateLines();
+    }
+    
+    @Modifying
+    @Query(value = "UPDATE cart_items c JOIN (SELECT user_id, product_id, MIN(id) AS keep_id, SUM(quantity) AS total " +
+                   "FROM cart_items GROUP BY user_id, product_id HAVING COUNT(*) > 1) d ON c.id = d.keep_id " +
+                   "SET c.quantity = d.total", nativeQuery = true)
+    int sumDuplicateLinesIntoFirst();
+    
+    @Modifying
+    @Query(value = "DELETE c FROM cart_items c JOIN (SELECT user_id, product_id, MIN(id) AS keep_id " +
+                   "FROM cart_items GROUP BY user_id, product_id HAVING COUNT(*) > 1) d " +
+                   "ON c.user_id = d.user_id AND c.product_id = d.product_id AND c.id <> d.keep_id", nativeQuery = true)
+    int deleteDuplicateLines();
+    
     @Modifying
     @Transactional
     @Query("UPDATE CartItem c SET c.quantity = :quantity WHERE c.id = :cartItemId")
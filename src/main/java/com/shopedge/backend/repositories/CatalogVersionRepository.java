@@ -0,0 +1,27 @@
+package com.shopedge.backend.repositories;
+
+import com.shopedge.backend.entities.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Integer> {
+    
+    @Query("SELECT v.version FROM CatalogVersion v WHERE v.id = 1")
+    Optional<Long> findCurrentVersion();
+    
+    /**
+     * Increment the catalog version, creating the row on first use.
+     * Joins the caller's transaction so the bump commits or rolls back with the change.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO catalog_version (id, version) VALUES (1, 1) " +
+                   "ON DUPLICATE KEY UPDATE version = version + 1", nativeQuery = true)
+    int increment();
+}
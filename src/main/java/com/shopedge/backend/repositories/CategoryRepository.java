@@ -3,12 +3,17 @@ package com.shopedge.backend.repositories;
 
 import com.shopedge.backend.entities.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
     
     Optional<Category> findByCategoryName(String categoryName);
+    
+    @Query("SELECT c.categoryName FROM Category c")
+    List<String> findAllNames();
 }
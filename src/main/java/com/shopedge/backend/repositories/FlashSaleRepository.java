@@ -0,0 +1,23 @@
+package com.shopedge.backend.repositories;
+
+
+import com.shopedge.backend.entities.FlashSale;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FlashSaleRepository extends JpaRepository<FlashSale, Integer> {
+    
+    /**
+     * Read a sale's ticket limit and lock its row, serializing ticket issue across nodes.
+     * Must run inside a transaction.
+     */
+    @Query(value = "SELECT max_checkouts FROM flash_sales WHERE product_id = :productId FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockMaxCheckouts(@Param("productId") Integer productId);
+    
+}
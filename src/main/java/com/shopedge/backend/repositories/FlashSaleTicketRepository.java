@@ -0,0 +1,69 @@
+package com.shopedge.backend.repositories;
+
+
+import com.shopedge.backend.entities.FlashSaleTicket;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface FlashSaleTicketRepository extends JpaRepository<FlashSaleTicket, Integer> {
+    
+    @Query("SELECT COUNT(t) FROM FlashSaleTicket t WHERE t.productId = :productId AND t.expiresAt > :now")
+    long countLive(@Param("productId") Integer productId, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT t.expiresAt FROM FlashSaleTicket t " +
+           "WHERE t.productId = :productId AND t.userId = :userId AND t.expiresAt > :now")
+    Optional<LocalDateTime> findLiveExpiry(@Param("productId") Integer productId, @Param("userId") Integer userId,
+                                           @Param("now") LocalDateTime now);
+    
+    @Query("SELECT t FROM FlashSaleTicket t WHERE t.userId = :userId AND t.productId IN :productIds")
+    List<FlashSaleTicket> findByUserAndProducts(@Param("userId") Integer userId,
+                                                @Param("productIds") Collection<Integer> productIds);
+    
+    /**
+     * Give a user a ticket, replacing an expired one they may still have a row for
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO flash_sale_tickets (product_id, user_id, issued_at, expires_at) " +
+                   "VALUES (:productId, :userId, :issuedAt, :expiresAt) " +
+                   "ON DUPLICATE KEY UPDATE issued_at = :issuedAt, expires_at = :expiresAt", nativeQuery = true)
+    int issue(@Param("productId") Integer productId, @Param("userId") Integer userId,
+              @Param("issuedAt") LocalDateTime issuedAt, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    /**
+     * Push live tickets out to a later expiry; never shortens one
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE FlashSaleTicket t SET t.expiresAt = :expiresAt WHERE t.userId = :userId " +
+           "AND t.productId IN :productIds AND t.expiresAt > :now AND t.expiresAt < :expiresAt")
+    int extend(@Param("userId") Integer userId, @Param("productIds") Collection<Integer> productIds,
+               @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FlashSaleTicket t WHERE t.userId = :userId AND t.productId IN :productIds")
+    int deleteByUserAndProducts(@Param("userId") Integer userId, @Param("productIds") Collection<Integer> productIds);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FlashSaleTicket t WHERE t.productId = :productId")
+    int deleteByProduct(@Param("productId") Integer productId);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FlashSaleTicket t WHERE t.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+    
+}
@@ -0,0 +1,27 @@
+package com.shopedge.backend.repositories;
+
+
+import com.shopedge.backend.entities.JWTRevocation;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface JWTRevocationRepository extends JpaRepository<JWTRevocation, Integer> {
+    
+    @Query("SELECT r FROM JWTRevocation r WHERE r.revokedAt >= :since AND r.expiresAt > :now")
+    List<JWTRevocation> findActiveRevokedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM JWTRevocation r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+    
+}
@@ -3,6 +3,7 @@ package com.shopedge.backend.repositories;
 
 import com.shopedge.backend.entities.JWTToken;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -21,9 +22,28 @@ public interface JWTTokenRepository extends JpaRepository<JWTToken, Integer> {
     @Query("SELECT t FROM JWTToken t WHERE t.token = :token")
     Optional<JWTToken> findByToken(@Param("token") String token);
     
+    Optional<JWTToken> findByTokenHash(String tokenHash);
+    
+    /**
+     * Find a row written before token_hash existed, matching on the raw token
+     */
+    @Query("SELECT t FROM JWTToken t WHERE t.token = :token AND t.tokenHash IS NULL")
+    Optional<JWTToken> findUnhashedByToken(@Param("token") String token);
+    
     @Modifying
     @Transactional
     @Query("DELETE FROM JWTToken t WHERE t.user.userId = :userId")
     void deleteByUserId(@Param("userId") int userId);
     
+    /**
+     * Delete up to limit expired tokens
+     * @param now Current time
+     * @param limit Maximum rows to delete in this batch
+     * @return Number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM jwt_tokens WHERE expires_at < :now LIMIT :limit", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
 }
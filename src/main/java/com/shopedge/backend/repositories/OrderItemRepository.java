@@ -1,12 +1,14 @@
 package com.shopedge.backend.repositories;
 
 
+import com.shopedge.backend.DTO.OrderLineView;
 import com.shopedge.backend.entities.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
@@ -25,4 +27,19 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
     
      @Query("SELECT oi FROM OrderItem oi WHERE oi.order.userId = :userId AND oi.order.status = 'SUCCESS'")
     	List<OrderItem> findSuccessfulOrderItemsByUserId(int userId);
+    
+    // Order history lines with product fields, skipping items whose product no longer exists
+    @Query("SELECT o.orderId AS orderId, oi.productId AS productId, p.name AS name, p.description AS description, " +
+           "p.primaryImageUrl AS primaryImageUrl, oi.quantity AS quantity, oi.pricePerUnit AS pricePerUnit, oi.totalPrice AS totalPrice " +
+           "FROM OrderItem oi JOIN oi.order o JOIN Product p ON p.productId = oi.productId " +
+           "WHERE o.userId = :userId AND o.status = 'SUCCESS' ORDER BY oi.id")
+    List<OrderLineView> findSuccessfulOrderLinesByUserId(@Param("userId") int userId);
+    
+    @Query("SELECT COUNT(DISTINCT oi.order.orderId) FROM OrderItem oi " +
+           "WHERE oi.order.userId = :userId AND oi.order.status = 'SUCCESS'")
+    long countSuccessfulOrdersByUserId(@Param("userId") int userId);
+    
+    @Query("SELECT COALESCE(SUM(oi.totalPrice), 0) FROM OrderItem oi " +
+           "WHERE oi.order.userId = :userId AND oi.order.status = 'SUCCESS'")
+    BigDecimal sumSuccessfulSpendingByUserId(@Param("userId") int userId);
 }
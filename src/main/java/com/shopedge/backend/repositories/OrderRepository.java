@@ -3,12 +3,15 @@ package com.shopedge.backend.repositories;
 import com.shopedge.backend.entities.Order;
 import com.shopedge.backend.entities.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -51,6 +54,21 @@ public interface OrderRepository extends JpaRepository<Order, String> {
      * @param orderId Order ID
      * @return Optional Order with loaded order items
      */
+    /**
+     * Move one of the user's orders out of PENDING. The condition makes a payment settle at most once,
+     * however often it is verified.
+     * @return 1 if the order was PENDING and belongs to the user, otherwise 0
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :updatedAt WHERE o.orderId = :orderId " +
+           "AND o.userId = :userId AND o.status = com.shopedge.backend.entities.OrderStatus.PENDING")
+    int settlePendingOrder(@Param("orderId") String orderId, @Param("userId") int userId,
+                           @Param("status") OrderStatus status, @Param("updatedAt") LocalDateTime updatedAt);
+    
+    @Query("SELECT o.status FROM Order o WHERE o.orderId = :orderId")
+    Optional<OrderStatus> findStatusById(@Param("orderId") String orderId);
+    
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.orderId = :orderId")
     Optional<Order> findOrderWithItems(@Param("orderId") String orderId);
     
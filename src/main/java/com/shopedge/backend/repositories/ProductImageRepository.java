@@ -8,12 +8,21 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Integer> {
     
     List<ProductImage> findByProduct_ProductId(Integer productId);
+    
+    /**
+     * Load the images of many products in one query
+     * @param productIds Product IDs
+     * @return images ordered by image ID, so the first image of each product comes first
+     */
+    @Query("SELECT pi FROM ProductImage pi WHERE pi.product.productId IN :productIds ORDER BY pi.imageId")
+    List<ProductImage> findByProductIds(@Param("productIds") Collection<Integer> productIds);
  
     @Modifying
     @Transactional
@@ -1,19 +1,111 @@
 package com.shopedge.backend.repositories;
 
+import com.shopedge.backend.DTO.ProductView;
 import com.shopedge.backend.entities.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Integer> {
 
+    String PRODUCT_VIEW_SELECT =
+            "SELECT p.productId AS productId, p.name AS name, p.description AS description, " +
+            "p.price AS price, p.stock AS stock, c.categoryId AS categoryId, c.categoryName AS categoryName " +
+            "FROM Product p LEFT JOIN p.category c ";
+
     List<Product> findByCategory_CategoryId(Integer categoryId);
   
     @Query("SELECT p.category.categoryName FROM Product p WHERE p.productId = :productId")
     String findCategoryNameByProductId(@Param("productId") Integer productId);
+    
+    @Query("SELECT p.name FROM Product p")
+    List<String> findAllNames();
+    
+    @Query("SELECT p.stock FROM Product p WHERE p.productId = :productId")
+    Optional<Integer> findStockById(@Param("productId") Integer productId);
+    
+    /**
+     * Fill primary_image_url from the first image of products that predate the column
+     * @return number of products updated
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE products p SET p.primary_image_url = " +
+                   "(SELECT pi.image_url FROM productimages pi WHERE pi.product_id = p.product_id " +
+                   "ORDER BY pi.image_id LIMIT 1) " +
+                   "WHERE p.primary_image_url IS NULL " +
+                   "AND EXISTS (SELECT 1 FROM productimages pi WHERE pi.product_id = p.product_id)",
+           nativeQuery = true)
+    int backfillPrimaryImageUrls();
+    
+    // Column projections for read paths: no managed entities, no eager category load
+    // and nothing for the persistence context to dirty-check.
+    
+    @Query(PRODUCT_VIEW_SELECT + "ORDER BY p.productId")
+    List<ProductView> findAllViews();
+    
+    @Query(PRODUCT_VIEW_SELECT + "WHERE p.productId = :productId")
+    Optional<ProductView> findViewById(@Param("productId") Integer productId);
+    
+    // Keyset pages: pass the last key of the previous page and PageRequest.of(0, size).
+    // Only the LIMIT of the Pageable is used, so no count query or OFFSET scan is issued.
+    
+    @Query(PRODUCT_VIEW_SELECT +
+           "WHERE p.productId > :afterId ORDER BY p.productId")
+    List<ProductView> findPageOrderById(@Param("afterId") Integer afterId, Pageable pageable);
+    
+    @Query(PRODUCT_VIEW_SELECT +
+           "WHERE c.categoryId = :categoryId AND p.productId > :afterId ORDER BY p.productId")
+    List<ProductView> findCategoryPageOrderById(@Param("categoryId") Integer categoryId,
+                                                @Param("afterId") Integer afterId, Pageable pageable);
+    
+    @Query(PRODUCT_VIEW_SELECT +
+           "WHERE p.price > :afterPrice OR (p.price = :afterPrice AND p.productId > :afterId) " +
+           "ORDER BY p.price, p.productId")
+    List<ProductView> findPageOrderByPrice(@Param("afterPrice") BigDecimal afterPrice,
+                                           @Param("afterId") Integer afterId, Pageable pageable);
+    
+    @Query(PRODUCT_VIEW_SELECT +
+           "WHERE c.categoryId = :categoryId " +
+           "AND (p.price > :afterPrice OR (p.price = :afterPrice AND p.productId > :afterId)) " +
+           "ORDER BY p.price, p.productId")
+    List<ProductView> findCategoryPageOrderByPrice(@Param("categoryId") Integer categoryId,
+                                                   @Param("afterPrice") BigDecimal afterPrice,
+                                                   @Param("afterId") Integer afterId, Pageable pageable);
+    
+    // Streaming reads: one row per (product, image) as scalars, so nothing accumulates in the
+    // persistence context. A fetch size of Integer.MIN_VALUE makes MySQL Connector/J stream
+    // rows instead of buffering the whole result set; must be consumed inside a transaction.
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.productId, p.name, p.description, p.price, p.stock, pi.imageUrl " +
+           "FROM Product p LEFT JOIN ProductImage pi ON pi.product = p " +
+           "ORDER BY p.productId, pi.imageId")
+    Stream<Object[]> streamCatalogRows();
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.productId, p.name, p.description, p.price, p.stock, pi.imageUrl " +
+           "FROM Product p LEFT JOIN ProductImage pi ON pi.product = p " +
+           "WHERE p.category.categoryId = :categoryId " +
+           "ORDER BY p.productId, pi.imageId")
+    Stream<Object[]> streamCategoryRows(@Param("categoryId") Integer categoryId);
 }
-
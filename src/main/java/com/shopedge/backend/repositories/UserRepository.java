@@ -3,7 +3,11 @@ package com.shopedge.backend.repositories;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.shopedge.backend.entities.User;
 
@@ -11,4 +15,10 @@ import com.shopedge.backend.entities.User;
 public interface UserRepository extends JpaRepository<User, Integer> {
 	Optional<User> findByEmail (String email);
 	Optional<User> findByUsername (String username);
+	
+	// Only replaces the hash if it has not changed since it was read
+	@Modifying
+	@Transactional
+	@Query("UPDATE User u SET u.password = :newHash WHERE u.userId = :userId AND u.password = :oldHash")
+	int replacePasswordHash (@Param("userId") Integer userId, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
\ No newline at end of file
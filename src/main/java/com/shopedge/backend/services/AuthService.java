@@ -1,40 +1,66 @@
 package com.shopedge.backend.services;
 
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
+import com.shopedge.backend.DTO.TokenClaims;
 import com.shopedge.backend.entities.JWTToken;
+import com.shopedge.backend.entities.Role;
 import com.shopedge.backend.entities.User;
 import com.shopedge.backend.repositories.JWTTokenRepository;
 import com.shopedge.backend.repositories.UserRepository;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.Optional;
 
 @Service
 public class AuthService {
     
     private final Key SIGNING_KEY;
+    private final JwtParser jwtParser;
     private final UserRepository userRepository;
     private final JWTTokenRepository jwtTokenRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RequestLogService requestLogService;
+    
+    // In stateless mode a valid signature and expiry are enough; jwt_tokens is not consulted
+    private final boolean stateless;
+    
+    // Tokens already confirmed against jwt_tokens, keyed by SHA-256 of the token; least recently used go first
+    private final BoundedCache<String, VerifiedToken> verifiedTokens;
     
     @Autowired
     public AuthService(UserRepository userRepository, 
                       JWTTokenRepository jwtTokenRepository,
-                      @Value("${jwt.secret}") String jwtSecret) {
+                      PasswordHashingService passwordHashingService,
+                      TokenRevocationService tokenRevocationService,
+                      RequestLogService requestLogService,
+                      @Value("${jwt.secret}") String jwtSecret,
+                      @Value("${jwt.stateless:false}") boolean stateless,
+                      @Value("${jwt.token-cache.max-entries:10000}") int tokenCacheMaxEntries) {
         this.userRepository = userRepository;
         this.jwtTokenRepository = jwtTokenRepository;
-        this.passwordEncoder = new BCryptPasswordEncoder();
+        this.tokenRevocationService = tokenRevocationService;
+        this.requestLogService = requestLogService;
+        this.passwordHashingService = passwordHashingService;
+        this.stateless = stateless;
+        this.verifiedTokens = new BoundedCache<>(tokenCacheMaxEntries);
         
         // Ensure the key length is at least 64 bytes
         if (jwtSecret.getBytes(StandardCharsets.UTF_8).length < 64) {
@@ -42,29 +68,53 @@ public class AuthService {
         }
         
         this.SIGNING_KEY = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        
+        // JwtParser is immutable and thread-safe, so one instance serves every request
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(SIGNING_KEY)
+                .build();
     }
     
     public User authenticate(String username, String password) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Invalid username or password"));
         
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHashingService.matches(password, user.getPassword())) {
             throw new RuntimeException("Invalid username or password");
         }
         
+        // Transparently move the stored hash to the current BCrypt cost factor
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            Integer userId = user.getUserId();
+            String oldHash = user.getPassword();
+            passwordHashingService.encodeAsync(password,
+                    newHash -> userRepository.replacePasswordHash(userId, oldHash, newHash));
+        }
+        
         return user;
     }
     
     public String generateToken(User user) {
+        if (stateless) {
+            return generateNewToken(user);
+        }
+        
         String token;
         LocalDateTime now = LocalDateTime.now();
         JWTToken existingToken = jwtTokenRepository.findByUserId(user.getUserId());
         
         if (existingToken != null && now.isBefore(existingToken.getExpiresAt())) {
             token = existingToken.getToken();
+            
+            // Rows written before token_hash existed are backfilled so lookups by digest find them
+            if (existingToken.getTokenHash() == null) {
+                existingToken.setTokenHash(hashToken(token));
+                jwtTokenRepository.save(existingToken);
+            }
         } else {
             token = generateNewToken(user);
             if (existingToken != null) {
+                verifiedTokens.remove(hashToken(existingToken.getToken()));
                 jwtTokenRepository.delete(existingToken);
             }
             saveToken(user, token);
@@ -85,36 +135,78 @@ public class AuthService {
     
     public void saveToken(User user, String token) {
         JWTToken jwtToken = new JWTToken(user, token, LocalDateTime.now().plusHours(1));
+        jwtToken.setTokenHash(hashToken(token));
         jwtTokenRepository.save(jwtToken);
     }
     
     
     
     public boolean validateToken(String token) {
+        return verifyToken(token).isPresent();
+    }
+    
+    /**
+     * Verify the token signature, expiry and jwt_tokens record in a single pass.
+     * @param token The JWT token string
+     * @return the verified claims, or empty if the token is not valid
+     */
+    public Optional<TokenClaims> verifyToken(String token) {
         try {
-            System.err.println("VALIDATING TOKEN...");
+            // Serve repeat callers from the verified-token cache
+            String tokenHash = hashToken(token);
+            VerifiedToken cached = verifiedTokens.get(tokenHash);
+            if (cached != null) {
+                if (cached.expiresAt().isAfter(LocalDateTime.now()) && !isRevoked(tokenHash, cached.claims())) {
+                    return Optional.of(cached.claims());
+                }
+                verifiedTokens.remove(tokenHash, cached);
+                return Optional.empty();
+            }
             
             // Parse and validate the token
-            Jwts.parserBuilder()
-                    .setSigningKey(SIGNING_KEY)
-                    .build()
-                    .parseClaimsJws(token);
+            TokenClaims claims = toTokenClaims(jwtParser.parseClaimsJws(token).getBody());
+            
+            if (stateless) {
+                if (isRevoked(tokenHash, claims)) {
+                    return Optional.empty();
+                }
+                cacheVerifiedToken(tokenHash, null, toLocalDateTime(claims), claims);
+                return Optional.of(claims);
+            }
             
             // Check if the token exists in the database and is not expired
-            Optional<JWTToken> jwtToken = jwtTokenRepository.findByToken(token);
+            Optional<JWTToken> jwtToken = jwtTokenRepository.findByTokenHash(tokenHash)
+                    .or(() -> backfillTokenHash(token, tokenHash));
             if (jwtToken.isPresent()) {
-                System.err.println("Token Expiry: " + jwtToken.get().getExpiresAt());
-                System.err.println("Current Time: " + LocalDateTime.now());
-                return jwtToken.get().getExpiresAt().isAfter(LocalDateTime.now());
+                JWTToken storedToken = jwtToken.get();
+                if (storedToken.getExpiresAt().isAfter(LocalDateTime.now())) {
+                    cacheVerifiedToken(tokenHash, storedToken.getUser().getUserId(), storedToken.getExpiresAt(), claims);
+                    return Optional.of(claims);
+                }
+                requestLogService.logEvent("token_expired", "expiresAt=" + storedToken.getExpiresAt());
+                return Optional.empty();
             }
             
-            return false;
+            requestLogService.logEvent("token_unknown", "subject=" + claims.getUsername());
+            return Optional.empty();
         } catch (Exception e) {
-            System.err.println("Token validation failed: " + e.getMessage());
-            return false;
+            requestLogService.logEvent("token_invalid", e.getClass().getSimpleName());
+            return Optional.empty();
         }
     }
     
+    /**
+     * Look up a row written before token_hash existed and store its digest, so only its first use pays for the fallback
+     */
+    private Optional<JWTToken> backfillTokenHash(String token, String tokenHash) {
+        Optional<JWTToken> legacy = jwtTokenRepository.findUnhashedByToken(token);
+        legacy.ifPresent(storedToken -> {
+            storedToken.setTokenHash(tokenHash);
+            jwtTokenRepository.save(storedToken);
+        });
+        return legacy;
+    }
+    
     /**
      * Extract username from JWT token
      * @param token The JWT token string
@@ -122,28 +214,105 @@ public class AuthService {
      */
     public String extractUsername(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(SIGNING_KEY)
-                    .build()
-                    .parseClaimsJws(token)
+            return jwtParser.parseClaimsJws(token)
                     .getBody()
                     .getSubject();
         } catch (Exception e) {
-            System.err.println("Error extracting username: " + e.getMessage());
+            requestLogService.logEvent("token_invalid", e.getClass().getSimpleName());
             return null;
         }
     }
     
+    private TokenClaims toTokenClaims(Claims body) {
+        String role = body.get("role", String.class);
+        return new TokenClaims(
+                body.getSubject(),
+                role != null ? Role.valueOf(role) : null,
+                body.getIssuedAt() != null ? body.getIssuedAt().toInstant() : null,
+                body.getExpiration() != null ? body.getExpiration().toInstant() : null);
+    }
+    
     
     /**
      * Invalidate the user's JWT token in the database.
+     * In stateless mode the presented token is added to the revocation list instead.
      *
-     * @param user The authenticated user
+     * @param principal The authenticated user
+     * @param token The token presented with the logout request, if any
      */
-    public void logout(User user) {
-        int userId = user.getUserId();
+    public void logout(AuthenticatedPrincipal principal, String token) {
+        int userId = principal.getUserId();
+
+        if (stateless) {
+            if (token != null) {
+                String tokenHash = hashToken(token);
+                LocalDateTime expiresAt = verifyToken(token)
+                        .map(this::toLocalDateTime)
+                        .orElse(LocalDateTime.now().plusHours(1));
+                tokenRevocationService.revokeToken(tokenHash, expiresAt);
+                verifiedTokens.remove(tokenHash);
+            }
+            return;
+        }
 
         // Delete token record if exists
         jwtTokenRepository.deleteByUserId(userId);
+        invalidateUserTokens(userId);
+    }
+    
+    /**
+     * Force every token issued so far to the given username to be rejected.
+     * Stateful mode relies on the caller deleting the jwt_tokens rows, so this only
+     * records a revocation when running stateless.
+     *
+     * @param username Username carried in the tokens to revoke
+     */
+    public void revokeUserTokens(String username) {
+        if (stateless) {
+            tokenRevocationService.revokeUser(username, LocalDateTime.now().plusHours(1));
+        }
+    }
+    
+    /**
+     * Drop every cached verification for the given user so the next request
+     * goes back to the jwt_tokens table.
+     *
+     * @param userId The user whose tokens were revoked
+     */
+    public void invalidateUserTokens(Integer userId) {
+        verifiedTokens.removeIf((tokenHash, entry) -> userId.equals(entry.userId()));
+    }
+    
+    private boolean isRevoked(String tokenHash, TokenClaims claims) {
+        return stateless && tokenRevocationService.isRevoked(tokenHash, claims.getUsername(), claims.getIssuedAt());
+    }
+    
+    private LocalDateTime toLocalDateTime(TokenClaims claims) {
+        return LocalDateTime.ofInstant(claims.getExpiresAt(), ZoneId.systemDefault());
+    }
+    
+    private void cacheVerifiedToken(String tokenHash, Integer userId, LocalDateTime expiresAt, TokenClaims claims) {
+        verifiedTokens.put(tokenHash, new VerifiedToken(userId, expiresAt, claims));
+    }
+    
+    /**
+     * Drop expired verifications off the request path; a full cache evicts its least recently used entries anyway
+     */
+    @Scheduled(fixedDelayString = "${jwt.token-cache.sweep-interval-ms:60000}")
+    public void sweepVerifiedTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        verifiedTokens.removeIf((tokenHash, entry) -> !entry.expiresAt().isAfter(now));
+    }
+    
+    private static String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    private record VerifiedToken(Integer userId, LocalDateTime expiresAt, TokenClaims claims) {
     }
 }
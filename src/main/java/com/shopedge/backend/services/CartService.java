@@ -1,57 +1,72 @@
 package com.shopedge.backend.services;
 
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
+import com.shopedge.backend.DTO.CartLineView;
 import com.shopedge.backend.entities.CartItem;
-import com.shopedge.backend.entities.Product;
-import com.shopedge.backend.entities.ProductImage;
-import com.shopedge.backend.entities.User;
 import com.shopedge.backend.repositories.CartRepository;
-import com.shopedge.backend.repositories.ProductImageRepository;
 import com.shopedge.backend.repositories.ProductRepository;
-import com.shopedge.backend.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
 @Service
 public class CartService {
     
-    @Autowired
-    private CartRepository cartRepository;
+    private static final Logger logger = LoggerFactory.getLogger(CartService.class);
     
     @Autowired
-    private UserRepository userRepository;
+    private CartRepository cartRepository;
     
     @Autowired
     private ProductRepository productRepository;
     
-    @Autowired
-    private ProductImageRepository productImageRepository;
-    
     /**
      * Add product to cart or increment quantity if already exists
      */
     public void addToCart(Integer userId, Integer productId, Integer quantity) {
-        // Validate user exists
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
-        
-        // Validate product exists
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
-        
-        // Check if item already exists in cart
-        Optional<CartItem> existingItem = cartRepository.findByUserAndProduct(userId, productId);
+        if (productId == null) {
+            throw new IllegalArgumentException("Product ID is required");
+        }
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
         
-        if (existingItem.isPresent()) {
-            // Item exists, increment quantity
-            CartItem cartItem = existingItem.get();
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-            cartRepository.save(cartItem);
-        } else {
-            // Item doesn't exist, create new cart item
-            CartItem newItem = new CartItem(user, product, quantity);
-            cartRepository.save(newItem);
+        // Insert or increment in one statement, only if stock covers the whole line; checkout reserves for real
+        if (cartRepository.addQuantity(userId, productId, quantity) == 0) {
+            if (!productRepository.existsById(productId)) {
+                throw new IllegalArgumentException("Product not found with ID: " + productId);
+            }
+            throw new IllegalArgumentException("Insufficient stock for product " + productId);
+        }
+    }
+    
+    /**
+     * Make sure cart_items has the unique key addToCart depends on. ddl-auto cannot add it while
+     * duplicate lines exist, so those are merged first; startup fails if the key is still missing.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureUniqueCartLines() {
+        if (cartRepository.countUniqueLineKeys() > 0) {
+            return;
+        }
+        int merged = cartRepository.mergeDuplicateLines();
+        if (merged > 0) {
+            logger.info("Merged {} duplicate cart lines", merged);
+        }
+        try {
+            cartRepository.addUniqueLineKey();
+        } catch (Exception e) {
+            logger.error("Adding unique key uk_cart_items_user_product failed: {}", e.getMessage());
+        }
+        if (cartRepository.countUniqueLineKeys() == 0) {
+            throw new IllegalStateException("cart_items has no unique key on (user_id, product_id); "
+                    + "add-to-cart would create duplicate lines");
         }
     }
     
@@ -65,13 +80,10 @@ public class CartService {
     /**
      * Get detailed cart items for a user with product information and calculations
      */
-    public Map<String, Object> getCartItems(Integer userId) {
-        // Fetch cart items with product details
-        List<CartItem> cartItems = cartRepository.findCartItemsWithProductDetails(userId);
-        
-        // Get user details
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+    @Transactional(readOnly = true)
+    public Map<String, Object> getCartItems(AuthenticatedPrincipal user) {
+        // Fetch only the cart and product columns the response needs
+        List<CartLineView> cartLines = cartRepository.findCartLines(user.getUserId());
         
         // Create response structure
         Map<String, Object> response = new HashMap<>();
@@ -82,26 +94,23 @@ public class CartService {
         List<Map<String, Object>> products = new ArrayList<>();
         double overallTotalPrice = 0;
         
-        for (CartItem cartItem : cartItems) {
+        for (CartLineView cartLine : cartLines) {
             Map<String, Object> productDetails = new HashMap<>();
-            Product product = cartItem.getProduct();
             
-            // Fetch product images
-            List<ProductImage> productImages = productImageRepository.findByProduct_ProductId(product.getProductId());
-            String imageUrl = (productImages != null && !productImages.isEmpty())
-                    ? productImages.get(0).getImageUrl()
+            String imageUrl = cartLine.getPrimaryImageUrl() != null
+                    ? cartLine.getPrimaryImageUrl()
                     : "https://via.placeholder.com/400?text=No+Image";
             
             // Calculate total price for this item
-            double itemTotalPrice = cartItem.getQuantity() * product.getPrice().doubleValue();
+            double itemTotalPrice = cartLine.getQuantity() * cartLine.getPrice().doubleValue();
             
             // Populate product details
-            productDetails.put("product_id", product.getProductId());
+            productDetails.put("product_id", cartLine.getProductId());
             productDetails.put("image_url", imageUrl);
-            productDetails.put("name", product.getName());
-            productDetails.put("description", product.getDescription());
-            productDetails.put("price_per_unit", product.getPrice());
-            productDetails.put("quantity", cartItem.getQuantity());
+            productDetails.put("name", cartLine.getName());
+            productDetails.put("description", cartLine.getDescription());
+            productDetails.put("price_per_unit", cartLine.getPrice());
+            productDetails.put("quantity", cartLine.getQuantity());
             productDetails.put("total_price", itemTotalPrice);
             
             products.add(productDetails);
@@ -121,13 +130,10 @@ public class CartService {
      * Update cart item quantity
      */
     public void updateCartItemQuantity(Integer userId, Integer productId, Integer quantity) {
-        // Validate user exists
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
         // Validate product exists
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+        if (!productRepository.existsById(productId)) {
+            throw new IllegalArgumentException("Product not found");
+        }
         
         // Find existing cart item
         Optional<CartItem> existingItem = cartRepository.findByUserAndProduct(userId, productId);
@@ -140,6 +146,7 @@ public class CartService {
                 deleteCartItem(userId, productId);
             } else {
                 // Update quantity
+                checkStock(productId, quantity);
                 cartItem.setQuantity(quantity);
                 cartRepository.save(cartItem);
             }
@@ -152,15 +159,23 @@ public class CartService {
      * Delete cart item
      */
     public void deleteCartItem(Integer userId, Integer productId) {
-        // Validate user exists
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
         // Validate product exists
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+        if (!productRepository.existsById(productId)) {
+            throw new IllegalArgumentException("Product not found");
+        }
         
         // Delete cart item
         cartRepository.deleteCartItem(userId, productId);
     }
+    
+    /**
+     * Same deliberately loose check as addToCart: products.stock, without pending reservations,
+     * since checkout reserves for real
+     */
+    private void checkStock(Integer productId, int quantity) {
+        int available = productRepository.findStockById(productId).orElse(0);
+        if (quantity > available) {
+            throw new IllegalArgumentException("Only " + available + " left in stock for product " + productId);
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.shopedge.backend.services;
+
+/**
+ * Published by admin services whenever products, images or categories change.
+ * The catalog snapshot is rebuilt once the publishing transaction commits.
+ */
+public class CatalogChangedEvent {
+    private final Integer productId;
+    
+    public CatalogChangedEvent(Integer productId) {
+        this.productId = productId;
+    }
+    
+    /**
+     * @return the product that changed, or null for catalog-wide changes
+     */
+    public Integer getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,57 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.DTO.CatalogProduct;
+import com.shopedge.backend.entities.Category;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One immutable generation of the product catalog. A new instance is built and swapped in
+ * as a whole whenever the catalog changes, so readers never see a half-updated view.
+ */
+public final class CatalogSnapshot {
+    private final long version;
+    private final List<CatalogProduct> products;
+    private final Map<Integer, CatalogProduct> productsById;
+    private final Map<String, List<CatalogProduct>> productsByCategoryName;
+    private final List<Category> categories;
+    
+    CatalogSnapshot(long version, List<CatalogProduct> products, Map<Integer, CatalogProduct> productsById,
+                    Map<String, List<CatalogProduct>> productsByCategoryName, List<Category> categories) {
+        this.version = version;
+        this.products = products;
+        this.productsById = productsById;
+        this.productsByCategoryName = productsByCategoryName;
+        this.categories = categories;
+    }
+    
+    /**
+     * @return shared catalog version this snapshot was loaded at
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * @return every product, ordered by product id
+     */
+    public List<CatalogProduct> getProducts() {
+        return products;
+    }
+    
+    public CatalogProduct getProduct(Integer productId) {
+        return productsById.get(productId);
+    }
+    
+    /**
+     * @return products in the category ordered by product id, or null if the category does not exist
+     */
+    public List<CatalogProduct> getProductsByCategoryName(String categoryName) {
+        return productsByCategoryName.get(categoryName);
+    }
+    
+    public List<Category> getCategories() {
+        return categories;
+    }
+}
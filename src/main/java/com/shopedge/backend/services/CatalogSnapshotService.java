@@ -0,0 +1,198 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.DTO.CatalogProduct;
+import com.shopedge.backend.DTO.ProductView;
+import com.shopedge.backend.entities.Category;
+import com.shopedge.backend.repositories.CatalogVersionRepository;
+import com.shopedge.backend.repositories.CategoryRepository;
+import com.shopedge.backend.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current catalog snapshot and rebuilds it copy-on-write.
+ *
+ * Readers only dereference an AtomicReference, so warm product reads do no DB work.
+ * The snapshot is rebuilt after an admin transaction that changes the catalog commits,
+ * and whenever the shared catalog version moves on, so that changes made through other
+ * instances are picked up too. The version is read in the same read-only transaction as
+ * the catalog rows, so a snapshot never pairs a version with content from another one.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductImageService productImageService;
+    private final CategoryRepository categoryRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private volatile boolean stale;
+    // Backoff for retrying a failed rebuild, guarded by the rebuild lock
+    private final long maxRetryDelayMs;
+    private int failedRebuilds;
+    private volatile long retryAtNanos;
+
+    public CatalogSnapshotService(ProductRepository productRepository,
+                                  ProductImageService productImageService,
+                                  CategoryRepository categoryRepository,
+                                  CatalogVersionRepository catalogVersionRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${catalog.snapshot.refresh-interval-ms:60000}") long maxRetryDelayMs) {
+        this.productRepository = productRepository;
+        this.productImageService = productImageService;
+        this.categoryRepository = categoryRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxRetryDelayMs = maxRetryDelayMs;
+    }
+
+    /**
+     * Get the current snapshot, building it on first use. A stale snapshot is still served
+     * while the rebuild is retried in the background.
+     */
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return rebuild();
+        }
+        return snapshot;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        stale = true;
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; retryFailedRebuild tries again
+            logger.warn("Catalog snapshot rebuild failed after change to product {}: {}",
+                    event.getProductId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Periodic version check so catalog changes committed on other instances become visible
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-interval-ms:60000}",
+               initialDelayString = "${catalog.snapshot.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            CatalogSnapshot snapshot = current.get();
+            long version = catalogVersionRepository.findCurrentVersion().orElse(0L);
+            if (snapshot != null && !stale && snapshot.getVersion() == version) {
+                return;
+            }
+            stale = true;
+            rebuild();
+        } catch (Exception e) {
+            logger.warn("Scheduled catalog snapshot rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Retry a failed rebuild with exponential backoff, capped at the refresh interval
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.retry-interval-ms:1000}")
+    public void retryFailedRebuild() {
+        if (stale && current.get() != null && System.nanoTime() - retryAtNanos >= 0) {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                logger.warn("Catalog snapshot rebuild retry failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private synchronized CatalogSnapshot rebuild() {
+        // Another caller already rebuilt while this one waited for the lock
+        CatalogSnapshot existing = current.get();
+        if (existing != null && !stale) {
+            return existing;
+        }
+
+        // Clear first so a change that lands while loading marks the new snapshot stale again
+        stale = false;
+        try {
+            CatalogSnapshot snapshot = readOnlyTransaction.execute(status -> load());
+            current.set(snapshot);
+            failedRebuilds = 0;
+            return snapshot;
+        } catch (RuntimeException e) {
+            stale = true;
+            long delayMs = Math.min(maxRetryDelayMs, 1000L << Math.min(failedRebuilds++, 16));
+            retryAtNanos = System.nanoTime() + delayMs * 1_000_000L;
+            CatalogSnapshot previous = current.get();
+            if (previous != null) {
+                logger.warn("Serving previous catalog snapshot, rebuild failed: {}", e.getMessage());
+                return previous;
+            }
+            throw e;
+        }
+    }
+
+    private CatalogSnapshot load() {
+        long version = catalogVersionRepository.findCurrentVersion().orElse(0L);
+
+        List<Category> categories = new ArrayList<>();
+        Map<String, List<CatalogProduct>> byCategoryName = new LinkedHashMap<>();
+        for (Category category : categoryRepository.findAll(Sort.by("categoryId"))) {
+            categories.add(new Category(category.getCategoryId(), category.getCategoryName()));
+            byCategoryName.put(category.getCategoryName(), new ArrayList<>());
+        }
+
+        List<ProductView> rows = productRepository.findAllViews();
+        Map<Integer, List<String>> imagesByProductId = productImageService.getImageUrls(
+                rows.stream().map(ProductView::getProductId).toList());
+
+        // Unchanged products keep their previous instance, so caches keyed on identity stay warm
+        CatalogSnapshot previous = current.get();
+
+        List<CatalogProduct> products = new ArrayList<>();
+        Map<Integer, CatalogProduct> byId = new HashMap<>();
+        for (ProductView product : rows) {
+            CatalogProduct catalogProduct = new CatalogProduct(
+                    product.getProductId(),
+                    product.getName(),
+                    product.getDescription(),
+                    product.getPrice(),
+                    product.getStock(),
+                    product.getCategoryId(),
+                    product.getCategoryName(),
+                    imagesByProductId.getOrDefault(product.getProductId(), Collections.emptyList()));
+            if (previous != null && catalogProduct.equals(previous.getProduct(catalogProduct.getProductId()))) {
+                catalogProduct = previous.getProduct(catalogProduct.getProductId());
+            }
+            products.add(catalogProduct);
+            byId.put(catalogProduct.getProductId(), catalogProduct);
+            if (catalogProduct.getCategoryName() != null) {
+                byCategoryName.computeIfAbsent(catalogProduct.getCategoryName(), name -> new ArrayList<>())
+                        .add(catalogProduct);
+            }
+        }
+
+        byCategoryName.replaceAll((name, list) -> List.copyOf(list));
+        return new CatalogSnapshot(version, List.copyOf(products), Map.copyOf(byId),
+                Collections.unmodifiableMap(byCategoryName), List.copyOf(categories));
+    }
+}
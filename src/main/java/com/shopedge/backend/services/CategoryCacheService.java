@@ -0,0 +1,109 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.entities.Category;
+import com.shopedge.backend.repositories.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cached category list and name-to-id lookup.
+ *
+ * Categories change rarely and only outside the admin product API, so the cache is reloaded
+ * on the catalog refresh interval and only replaced when the content actually differs.
+ * The ETag is a digest of the content, so it stays stable across reloads and instances.
+ */
+@Service
+public class CategoryCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryCacheService.class);
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile CachedCategories cached;
+
+    public CategoryCacheService(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    /**
+     * @return all categories ordered by id; callers must not modify them
+     */
+    public List<Category> getCategories() {
+        return load().categories();
+    }
+
+    /**
+     * @return strong ETag (quoted) for the current category list
+     */
+    public String getETag() {
+        return load().eTag();
+    }
+
+    /**
+     * Resolve a category name without a query
+     * @return category ID, or null if no such category exists
+     */
+    public Integer findCategoryId(String categoryName) {
+        return load().idsByName().get(categoryName);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-interval-ms:60000}",
+               initialDelayString = "${catalog.snapshot.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            logger.warn("Category cache reload failed: {}", e.getMessage());
+        }
+    }
+
+    private CachedCategories load() {
+        CachedCategories current = cached;
+        return current != null ? current : reload();
+    }
+
+    private synchronized CachedCategories reload() {
+        List<Category> categories = new ArrayList<>();
+        Map<String, Integer> idsByName = new HashMap<>();
+        StringBuilder content = new StringBuilder();
+        for (Category category : categoryRepository.findAll(Sort.by("categoryId"))) {
+            categories.add(new Category(category.getCategoryId(), category.getCategoryName()));
+            idsByName.put(category.getCategoryName(), category.getCategoryId());
+            content.append(category.getCategoryId()).append('\u0000').append(category.getCategoryName()).append('\u0000');
+        }
+
+        String eTag = "\"" + digest(content.toString()) + "\"";
+        CachedCategories current = cached;
+        if (current != null && current.eTag().equals(eTag)) {
+            return current;
+        }
+        CachedCategories fresh = new CachedCategories(List.copyOf(categories), Map.copyOf(idsByName), eTag);
+        cached = fresh;
+        return fresh;
+    }
+
+    private static String digest(String content) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedCategories(List<Category> categories, Map<String, Integer> idsByName, String eTag) {
+    }
+}
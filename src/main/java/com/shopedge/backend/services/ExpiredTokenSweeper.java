@@ -0,0 +1,53 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.repositories.JWTTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically removes expired rows from jwt_tokens.
+ * Deletes run in bounded batches, each in its own short transaction,
+ * so a large backlog never holds locks on the table for long.
+ */
+@Service
+public class ExpiredTokenSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiredTokenSweeper.class);
+
+    private final JWTTokenRepository jwtTokenRepository;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public ExpiredTokenSweeper(JWTTokenRepository jwtTokenRepository,
+                               @Value("${jwt.sweeper.batch-size:1000}") int batchSize,
+                               @Value("${jwt.sweeper.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this.jwtTokenRepository = jwtTokenRepository;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.sweeper.interval-ms:600000}", initialDelayString = "${jwt.sweeper.initial-delay-ms:60000}")
+    public void sweepExpiredTokens() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int total = 0;
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int deleted = jwtTokenRepository.deleteExpiredBatch(now, batchSize);
+                total += deleted;
+                if (deleted < batchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                logger.info("Removed {} expired JWT tokens", total);
+            }
+        } catch (Exception e) {
+            logger.warn("Expired token sweep failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.entities.FlashSale;
+import com.shopedge.backend.entities.FlashSaleTicket;
+import com.shopedge.backend.repositories.FlashSaleRepository;
+import com.shopedge.backend.repositories.FlashSaleTicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in admission control for products under a flash sale.
+ *
+ * A sale hands out a fixed number of checkout tickets. Buyers beyond that wait in a bounded
+ * FIFO queue and are promoted in arrival order as tickets are used or expire. Once the queue is
+ * full, further buyers are turned away at once. Cart and checkout calls for the product need a
+ * valid ticket, so at most maxCheckouts buyers per product reach the database at a time.
+ * Once a buyer checks out, their ticket is held for as long as the stock reservation and is
+ * given back when the payment succeeds or fails, so the cap also covers pending payments.
+ *
+ * Sales and tickets live in the flash_sales and flash_sale_tickets tables, so the cap holds
+ * across instances and a ticket issued by one node is honoured by every other. Tickets are
+ * issued under a lock on the sale row. Each node queues only the buyers polling it, so
+ * arrival order is strict per node and approximate across nodes.
+ */
+@Service
+public class FlashSaleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlashSaleService.class);
+
+    // After a sale is found full, skip further issue attempts for a moment unless a ticket comes back here
+    private static final long FULL_BACKOFF_NANOS = 1_000_000_000L;
+
+    public enum Status { ADMITTED, QUEUED, REJECTED }
+
+    private final FlashSaleRepository flashSaleRepository;
+    private final FlashSaleTicketRepository ticketRepository;
+    // Own transaction, since release runs after the payment transaction has already committed
+    private final TransactionTemplate ticketTransaction;
+    private final int defaultMaxCheckouts;
+    private final int defaultQueueCapacity;
+    private final long ticketTtlNanos;
+    private final long queueIdleNanos;
+
+    // Local view of the flash_sales table plus this node's queue, refreshed by the sweep
+    private final Map<Integer, Sale> sales = new ConcurrentHashMap<>();
+
+    public FlashSaleService(FlashSaleRepository flashSaleRepository,
+                            FlashSaleTicketRepository ticketRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${flashsale.default-max-checkouts:50}") int defaultMaxCheckouts,
+                            @Value("${flashsale.default-queue-capacity:1000}") int defaultQueueCapacity,
+                            @Value("${flashsale.ticket-ttl-seconds:300}") long ticketTtlSeconds,
+                            @Value("${flashsale.queue-idle-seconds:30}") long queueIdleSeconds) {
+        this.flashSaleRepository = flashSaleRepository;
+        this.ticketRepository = ticketRepository;
+        this.ticketTransaction = new TransactionTemplate(transactionManager);
+        this.ticketTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.defaultMaxCheckouts = defaultMaxCheckouts;
+        this.defaultQueueCapacity = defaultQueueCapacity;
+        this.ticketTtlNanos = ticketTtlSeconds * 1_000_000_000L;
+        this.queueIdleNanos = queueIdleSeconds * 1_000_000_000L;
+    }
+
+    /**
+     * Put a product under flash-sale admission control, or change the limits of a running sale
+     * @param maxCheckouts Concurrent checkout tickets, or null for the default
+     * @param queueCapacity Maximum number of waiting buyers per node, or null for the default
+     * @throws IllegalArgumentException if a limit is not positive
+     */
+    public void enable(Integer productId, Integer maxCheckouts, Integer queueCapacity) {
+        int checkouts = maxCheckouts != null ? maxCheckouts : defaultMaxCheckouts;
+        int capacity = queueCapacity != null ? queueCapacity : defaultQueueCapacity;
+        if (checkouts <= 0 || capacity < 0) {
+            throw new IllegalArgumentException("maxCheckouts must be positive and queueCapacity not negative");
+        }
+        flashSaleRepository.save(new FlashSale(productId, checkouts, capacity));
+        applyLimits(productId, checkouts, capacity);
+    }
+
+    /**
+     * End a flash sale on every node; the product goes back to unrestricted access
+     * @return false if the product had no running sale
+     */
+    public boolean disable(Integer productId) {
+        boolean existed = flashSaleRepository.existsById(productId);
+        if (existed) {
+            flashSaleRepository.deleteById(productId);
+            ticketRepository.deleteByProduct(productId);
+        }
+        return sales.remove(productId) != null || existed;
+    }
+
+    /**
+     * Ask for a checkout ticket, joining or keeping a place in the queue if none is free.
+     * Queued buyers should call again after Admission.retryAfterSeconds to keep their place.
+     */
+    public Admission admit(Integer productId, Integer userId) {
+        Sale sale = sales.get(productId);
+        if (sale == null) {
+            return new Admission(Status.ADMITTED, 0, 0, 0);
+        }
+        return sale.admit(userId, System.nanoTime());
+    }
+
+    /**
+     * @return true if the product is not on flash sale or the user holds an unexpired ticket for it
+     */
+    public boolean hasTicket(Integer productId, Integer userId) {
+        if (!sales.containsKey(productId)) {
+            return true;
+        }
+        return ticketRepository.findLiveExpiry(productId, userId, LocalDateTime.now()).isPresent();
+    }
+
+    /**
+     * Keep the user's tickets until the given deadline, so they expire together with the stock
+     * reservation of the checkout that uses them
+     * @param untilNanos System.nanoTime() deadline
+     */
+    public void holdUntil(Integer userId, Collection<Integer> productIds, long untilNanos) {
+        Set<Integer> onSale = onSale(productIds);
+        if (!onSale.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            ticketRepository.extend(userId, onSale, now, now.plusNanos(untilNanos - System.nanoTime()));
+        }
+    }
+
+    /**
+     * Give back the user's tickets once their checkout has finished, freeing the slots for the queue
+     */
+    public void release(Integer userId, Collection<Integer> productIds) {
+        Set<Integer> onSale = onSale(productIds);
+        if (onSale.isEmpty()) {
+            return;
+        }
+        List<FlashSaleTicket> released = ticketTransaction.execute(status -> {
+            List<FlashSaleTicket> tickets = ticketRepository.findByUserAndProducts(userId, onSale);
+            ticketRepository.deleteByUserAndProducts(userId, onSale);
+            return tickets;
+        });
+        LocalDateTime now = LocalDateTime.now();
+        for (FlashSaleTicket ticket : released) {
+            Sale sale = sales.get(ticket.getProductId());
+            if (sale != null) {
+                sale.released(Duration.between(ticket.getIssuedAt(), now).toNanos(), System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Pick up sales changed on other nodes, drop expired tickets and buyers who stopped polling,
+     * then fill free slots from the queue heads
+     */
+    @Scheduled(fixedDelayString = "${flashsale.sweep-interval-ms:5000}")
+    public void sweep() {
+        try {
+            ticketRepository.deleteExpired(LocalDateTime.now());
+            Set<Integer> running = new HashSet<>();
+            for (FlashSale sale : flashSaleRepository.findAll()) {
+                running.add(sale.getProductId());
+                applyLimits(sale.getProductId(), sale.getMaxCheckouts(), sale.getQueueCapacity());
+            }
+            sales.keySet().retainAll(running);
+
+            long now = System.nanoTime();
+            for (Sale sale : sales.values()) {
+                sale.sweep(now);
+            }
+        } catch (Exception e) {
+            logger.warn("Flash sale sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private void applyLimits(Integer productId, int maxCheckouts, int queueCapacity) {
+        sales.compute(productId, (id, sale) -> {
+            if (sale == null) {
+                return new Sale(id, maxCheckouts, queueCapacity);
+            }
+            sale.setLimits(maxCheckouts, queueCapacity);
+            return sale;
+        });
+    }
+
+    private Set<Integer> onSale(Collection<Integer> productIds) {
+        Set<Integer> onSale = new HashSet<>();
+        for (Integer productId : productIds) {
+            if (sales.containsKey(productId)) {
+                onSale.add(productId);
+            }
+        }
+        return onSale;
+    }
+
+    /**
+     * Result of an admission request.
+     * @param position 1-based place in the queue when QUEUED, otherwise 0
+     * @param estimatedWaitSeconds Rough wait until admission when QUEUED
+     * @param expiresInSeconds Remaining ticket lifetime when ADMITTED
+     */
+    public record Admission(Status status, int position, long estimatedWaitSeconds, long expiresInSeconds) {
+
+        /**
+         * @return seconds a queued or rejected buyer should wait before asking again
+         */
+        public long retryAfterSeconds() {
+            return Math.max(1, Math.min(estimatedWaitSeconds, 10));
+        }
+    }
+
+    /**
+     * Limits and this node's queue for one product. The monitor keeps promotion in arrival
+     * order; tickets themselves are issued in the database.
+     */
+    private final class Sale {
+        private final Integer productId;
+        private final LinkedHashMap<Integer, Long> queueLastSeen = new LinkedHashMap<>();
+        private int maxCheckouts;
+        private int queueCapacity;
+        private boolean full;
+        private long fullUntilNanos;
+        // Smoothed time between issuing a ticket and getting it back, for wait estimates
+        private long averageHoldNanos = ticketTtlNanos;
+
+        Sale(Integer productId, int maxCheckouts, int queueCapacity) {
+            this.productId = productId;
+            this.maxCheckouts = maxCheckouts;
+            this.queueCapacity = queueCapacity;
+        }
+
+        synchronized void setLimits(int maxCheckouts, int queueCapacity) {
+            this.maxCheckouts = maxCheckouts;
+            this.queueCapacity = queueCapacity;
+        }
+
+        synchronized Admission admit(Integer userId, long now) {
+            dropIdle(now);
+
+            LocalDateTime expiry = ticketRepository.findLiveExpiry(productId, userId, LocalDateTime.now()).orElse(null);
+            if (expiry != null) {
+                queueLastSeen.remove(userId);
+                return admitted(expiry);
+            }
+
+            if (!queueLastSeen.containsKey(userId) && queueLastSeen.size() >= queueCapacity) {
+                return new Admission(Status.REJECTED, 0, estimateWaitSeconds(queueLastSeen.size() + 1), 0);
+            }
+            // Re-putting an existing key keeps its place in the queue
+            queueLastSeen.put(userId, now);
+
+            LocalDateTime issued = promote(userId, now);
+            if (issued != null) {
+                return admitted(issued);
+            }
+            return queued(positionOf(userId));
+        }
+
+        synchronized void released(long heldNanos, long now) {
+            averageHoldNanos = (averageHoldNanos * 7 + Math.max(0, heldNanos)) / 8;
+            full = false;
+            promote(null, now);
+        }
+
+        synchronized void sweep(long now) {
+            dropIdle(now);
+            full = false;
+            promote(null, now);
+        }
+
+        private void dropIdle(long now) {
+            queueLastSeen.values().removeIf(lastSeen -> now - lastSeen > queueIdleNanos);
+        }
+
+        /**
+         * Issue tickets to the queue head while the sale has free slots
+         * @return the ticket expiry if the given user was among those promoted
+         */
+        private LocalDateTime promote(Integer userId, long now) {
+            if (full && now - fullUntilNanos < 0) {
+                return null;
+            }
+            full = false;
+            LocalDateTime promoted = null;
+            Iterator<Integer> waiting = queueLastSeen.keySet().iterator();
+            while (waiting.hasNext()) {
+                Integer next = waiting.next();
+                LocalDateTime expiry = tryIssue(next);
+                if (expiry == null) {
+                    full = true;
+                    fullUntilNanos = now + FULL_BACKOFF_NANOS;
+                    break;
+                }
+                waiting.remove();
+                if (next.equals(userId)) {
+                    promoted = expiry;
+                }
+            }
+            return promoted;
+        }
+
+        /**
+         * @return the new ticket's expiry, or null if every ticket of the sale is taken
+         */
+        private LocalDateTime tryIssue(Integer userId) {
+            return ticketTransaction.execute(status -> {
+                Integer limit = flashSaleRepository.lockMaxCheckouts(productId).orElse(null);
+                LocalDateTime issuedAt = LocalDateTime.now();
+                if (limit == null || ticketRepository.countLive(productId, issuedAt) >= limit) {
+                    return null;
+                }
+                LocalDateTime expiresAt = issuedAt.plusNanos(ticketTtlNanos);
+                ticketRepository.issue(productId, userId, issuedAt, expiresAt);
+                return expiresAt;
+            });
+        }
+
+        private int positionOf(Integer userId) {
+            int position = 1;
+            for (Integer waiting : queueLastSeen.keySet()) {
+                if (waiting.equals(userId)) {
+                    return position;
+                }
+                position++;
+            }
+            return position;
+        }
+
+        private Admission admitted(LocalDateTime expiry) {
+            long seconds = Duration.between(LocalDateTime.now(), expiry).toSeconds();
+            return new Admission(Status.ADMITTED, 0, 0, Math.max(0, seconds));
+        }
+
+        private Admission queued(int position) {
+            return new Admission(Status.QUEUED, position, estimateWaitSeconds(position), 0);
+        }
+
+        private long estimateWaitSeconds(int position) {
+            long rounds = (position + maxCheckouts - 1) / maxCheckouts;
+            return Math.max(1, rounds * averageHoldNanos / 1_000_000_000L);
+        }
+    }
+}
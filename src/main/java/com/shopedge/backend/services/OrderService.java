@@ -1,9 +1,11 @@
 package com.shopedge.backend.services;
 
-import com.shopedge.backend.entities.*;
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
+import com.shopedge.backend.DTO.OrderLineView;
 import com.shopedge.backend.repositories.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -16,54 +18,38 @@ public class OrderService {
     @Autowired
     private OrderItemRepository orderItemRepository;
     
-    @Autowired
-    private ProductRepository productRepository;
-    
-    @Autowired
-    private ProductImageRepository productImageRepository;
-    
     /**
      * Fetches all successful orders for a given user and returns the required response format.
      * This method combines data from multiple repositories to create a comprehensive order history.
      * 
-     * @param user The authenticated user object
+     * @param user The authenticated user principal
      * @return A map containing the user's role, username, and ordered products
      */
-    public Map<String, Object> getOrdersForUser(User user) {
+    @Transactional(readOnly = true)
+    public Map<String, Object> getOrdersForUser(AuthenticatedPrincipal user) {
         try {
-            // Fetch all successful order items for the user
-            List<OrderItem> orderItems = orderItemRepository.findSuccessfulOrderItemsByUserId(user.getUserId());
+            // Fetch successful order lines together with the product fields and thumbnail they show
+            List<OrderLineView> orderLines = orderItemRepository.findSuccessfulOrderLinesByUserId(user.getUserId());
             
             // Prepare the response structure
             Map<String, Object> response = new HashMap<>();
             response.put("username", user.getUsername());
             response.put("role", user.getRole().toString()); // Convert enum to string
             
-            // Transform order items into a list of product details
+            // Transform order lines into a list of product details
             List<Map<String, Object>> products = new ArrayList<>();
             
-            for (OrderItem item : orderItems) {
-                // Fetch product details
-                Product product = productRepository.findById(item.getProductId()).orElse(null);
-                if (product == null) {
-                    // Skip if product doesn't exist (data integrity issue)
-                    continue;
-                }
-                
-                // Fetch the first product image (if available)
-                List<ProductImage> images = productImageRepository.findByProduct_ProductId(product.getProductId());
-                String imageUrl = images.isEmpty() ? null : images.get(0).getImageUrl();
-                
+            for (OrderLineView line : orderLines) {
                 // Create a comprehensive product details map
                 Map<String, Object> productDetails = new HashMap<>();
-                productDetails.put("order_id", item.getOrder().getOrderId());
-                productDetails.put("quantity", item.getQuantity());
-                productDetails.put("total_price", item.getTotalPrice());
-                productDetails.put("image_url", imageUrl);
-                productDetails.put("product_id", product.getProductId());
-                productDetails.put("name", product.getName());
-                productDetails.put("description", product.getDescription());
-                productDetails.put("price_per_unit", item.getPricePerUnit());
+                productDetails.put("order_id", line.getOrderId());
+                productDetails.put("quantity", line.getQuantity());
+                productDetails.put("total_price", line.getTotalPrice());
+                productDetails.put("image_url", line.getPrimaryImageUrl());
+                productDetails.put("product_id", line.getProductId());
+                productDetails.put("name", line.getName());
+                productDetails.put("description", line.getDescription());
+                productDetails.put("price_per_unit", line.getPricePerUnit());
                 
                 products.add(productDetails);
             }
@@ -97,13 +83,10 @@ public class OrderService {
      * @param userId The user ID
      * @return Number of successful orders
      */
+    @Transactional(readOnly = true)
     public long getOrderCountForUser(int userId) {
         try {
-            List<OrderItem> items = orderItemRepository.findSuccessfulOrderItemsByUserId(userId);
-            return items.stream()
-                    .map(item -> item.getOrder().getOrderId())
-                    .distinct()
-                    .count();
+            return orderItemRepository.countSuccessfulOrdersByUserId(userId);
         } catch (Exception e) {
             e.printStackTrace();
             return 0;
@@ -115,12 +98,10 @@ public class OrderService {
      * @param userId The user ID
      * @return Total amount spent by user
      */
+    @Transactional(readOnly = true)
     public Double getTotalSpendingForUser(int userId) {
         try {
-            List<OrderItem> items = orderItemRepository.findSuccessfulOrderItemsByUserId(userId);
-            return items.stream()
-                    .mapToDouble(item -> item.getTotalPrice().doubleValue())
-                    .sum();
+            return orderItemRepository.sumSuccessfulSpendingByUserId(userId).doubleValue();
         } catch (Exception e) {
             e.printStackTrace();
             return 0.0;
@@ -1,7 +1,7 @@
 package com.shopedge.backend.services;
 
 
-import com.shopedge.backend.entities.CartItem;
+import com.shopedge.backend.DTO.CartLineView;
 import com.shopedge.backend.entities.Order;
 import com.shopedge.backend.entities.OrderItem;
 import com.shopedge.backend.entities.OrderStatus;
@@ -14,10 +14,16 @@ import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class PaymentService {
@@ -31,13 +37,19 @@ public class PaymentService {
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartRepository cartRepository;
+    private final StockReservationService stockReservationService;
+    private final FlashSaleService flashSaleService;
     
     public PaymentService(OrderRepository orderRepository, 
                          OrderItemRepository orderItemRepository, 
-                         CartRepository cartRepository) {
+                         CartRepository cartRepository,
+                         StockReservationService stockReservationService,
+                         FlashSaleService flashSaleService) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.cartRepository = cartRepository;
+        this.stockReservationService = stockReservationService;
+        this.flashSaleService = flashSaleService;
     }
     
     /**
@@ -47,9 +59,37 @@ public class PaymentService {
      * @param cartItems - List of cart items (not used in current implementation)
      * @return Razorpay order ID
      * @throws RazorpayException if order creation fails
+     * @throws IllegalStateException if a product in the user's cart is out of stock,
+     *         or is on flash sale and the user holds no checkout ticket for it
      */
     @Transactional
     public String createOrder(int userId, BigDecimal totalAmount, List<OrderItem> cartItems) throws RazorpayException {
+        // Hold stock for the server-side cart before anything is charged
+        List<CartLineView> lines = cartRepository.findCartLines(userId);
+        Map<Integer, Integer> quantities = new HashMap<>();
+        for (CartLineView line : lines) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        for (Integer productId : quantities.keySet()) {
+            if (!flashSaleService.hasTicket(productId, userId)) {
+                throw new IllegalStateException("Checkout ticket required for flash-sale product " + productId);
+            }
+        }
+        StockReservationService.Reservation reservation = stockReservationService.reserve(quantities);
+        
+        try {
+            String orderId = createRazorpayOrder(userId, totalAmount, lines);
+            stockReservationService.attach(orderId, reservation);
+            // A flash-sale ticket stays taken until the payment settles or the reservation expires
+            flashSaleService.holdUntil(userId, quantities.keySet(), reservation.getExpiresAtNanos());
+            return orderId;
+        } catch (RazorpayException | RuntimeException e) {
+            stockReservationService.release(reservation);
+            throw e;
+        }
+    }
+    
+    private String createRazorpayOrder(int userId, BigDecimal totalAmount, List<CartLineView> lines) throws RazorpayException {
         // Create Razorpay client
         RazorpayClient razorpayClient = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
         
@@ -71,6 +111,12 @@ public class PaymentService {
         order.setCreatedAt(LocalDateTime.now());
         orderRepository.save(order);
         
+        // Record the lines that were reserved and priced; they only count once the order succeeds
+        for (CartLineView line : lines) {
+            orderItemRepository.save(new OrderItem(order, line.getProductId(), line.getQuantity(), line.getPrice(),
+                    line.getPrice().multiply(BigDecimal.valueOf(line.getQuantity()))));
+        }
+        
         return razorpayOrder.get("id");
     }
     
@@ -85,6 +131,16 @@ public class PaymentService {
     @Transactional
     public boolean verifyPayment(String razorpayOrderId, String razorpayPaymentId, String razorpaySignature, int userId) {
         try {
+            // Only the buyer may settle or fail an order
+            Order order = orderRepository.findById(razorpayOrderId).orElse(null);
+            if (order == null || order.getUserId() != userId) {
+                return false;
+            }
+            // A replayed verify reports the first outcome and leaves stock alone
+            if (order.getStatus() != OrderStatus.PENDING) {
+                return order.getStatus() == OrderStatus.SUCCESS;
+            }
+            
             // Prepare signature validation attributes
             JSONObject attributes = new JSONObject();
             attributes.put("razorpay_order_id", razorpayOrderId);
@@ -95,53 +151,43 @@ public class PaymentService {
             boolean isSignatureValid = com.razorpay.Utils.verifyPaymentSignature(attributes, razorpayKeySecret);
             
             if (isSignatureValid) {
-                // Update order status to SUCCESS
-                Order order = orderRepository.findById(razorpayOrderId)
-                    .orElseThrow(() -> new RuntimeException("Order not found"));
-                order.setStatus(OrderStatus.SUCCESS);
-                order.setUpdatedAt(LocalDateTime.now());
-                orderRepository.save(order);
-                
-                // Fetch cart items for the user
-                List<CartItem> cartItems = cartRepository.findCartItemsWithProductDetails(userId);
+                // Update order status to SUCCESS, unless a concurrent verify got there first
+                if (orderRepository.settlePendingOrder(razorpayOrderId, userId, OrderStatus.SUCCESS, LocalDateTime.now()) == 0) {
+                    return orderRepository.findStatusById(razorpayOrderId).orElse(null) == OrderStatus.SUCCESS;
+                }
                 
-                // Save order items
-                for (CartItem cartItem : cartItems) {
-                    OrderItem orderItem = new OrderItem();
-                    orderItem.setOrder(order);
-                    orderItem.setProductId(cartItem.getProduct().getProductId());
-                    orderItem.setQuantity(cartItem.getQuantity());
-                    orderItem.setPricePerUnit(cartItem.getProduct().getPrice());
-                    orderItem.setTotalPrice(
-                        cartItem.getProduct().getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity()))
-                    );
-                    orderItemRepository.save(orderItem);
+                // Order items were written with the reservation at checkout, so the cart may have changed since
+                Map<Integer, Integer> quantities = new HashMap<>();
+                for (OrderItem orderItem : orderItemRepository.findByOrderId(razorpayOrderId)) {
+                    quantities.merge(orderItem.getProductId(), orderItem.getQuantity(), Integer::sum);
                 }
                 
                 // Clear user's cart
                 cartRepository.deleteAllCartItemsByUserId(userId);
                 
+                // Only count the sale once the order is durably SUCCESS; the payment is captured either way,
+                // so a false result from commit is logged as an oversell
+                runAfterCommit(() -> {
+                    stockReservationService.commit(razorpayOrderId, quantities);
+                    flashSaleService.release(userId, quantities.keySet());
+                });
+                
                 return true;
             } else {
                 // Update order status to FAILED if signature is invalid
-                Order order = orderRepository.findById(razorpayOrderId)
-                    .orElseThrow(() -> new RuntimeException("Order not found"));
-                order.setStatus(OrderStatus.FAILED);
-                order.setUpdatedAt(LocalDateTime.now());
-                orderRepository.save(order);
+                if (orderRepository.settlePendingOrder(razorpayOrderId, userId, OrderStatus.FAILED, LocalDateTime.now()) > 0) {
+                    releaseCheckout(razorpayOrderId, userId);
+                }
                 
                 return false;
             }
         } catch (Exception e) {
             e.printStackTrace();
             
-            // Update order status to FAILED in case of any exception
+            // Update order status to FAILED in case of any exception, if it is still the user's pending order
             try {
-                Order order = orderRepository.findById(razorpayOrderId).orElse(null);
-                if (order != null) {
-                    order.setStatus(OrderStatus.FAILED);
-                    order.setUpdatedAt(LocalDateTime.now());
-                    orderRepository.save(order);
+                if (orderRepository.settlePendingOrder(razorpayOrderId, userId, OrderStatus.FAILED, LocalDateTime.now()) > 0) {
+                    releaseCheckout(razorpayOrderId, userId);
                 }
             } catch (Exception ex) {
                 ex.printStackTrace();
@@ -166,4 +212,34 @@ public class PaymentService {
             orderItemRepository.save(item);
         }
     }
+    
+    /**
+     * Return a failed order's reserved stock and the flash-sale tickets it was holding
+     */
+    private void releaseCheckout(String razorpayOrderId, int userId) {
+        stockReservationService.release(razorpayOrderId);
+        try {
+            Set<Integer> productIds = new HashSet<>();
+            for (OrderItem orderItem : orderItemRepository.findByOrderId(razorpayOrderId)) {
+                productIds.add(orderItem.getProductId());
+            }
+            flashSaleService.release(userId, productIds);
+        } catch (Exception e) {
+            // Tickets still expire together with the reservation
+            e.printStackTrace();
+        }
+    }
+    
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,93 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.DTO.AuthenticatedPrincipal;
+import com.shopedge.backend.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the authenticated principal per username so a warm request
+ * can be authenticated without touching the users table.
+ *
+ * Entries expire after a short TTL, which bounds how long a role change made through
+ * another instance goes unnoticed here.
+ */
+@Service
+public class PrincipalCacheService {
+    
+    private final UserRepository userRepository;
+    // Least recently used principals are evicted once the cache is full
+    private final BoundedCache<String, CachedPrincipal> principals;
+    private final long ttlNanos;
+    // Bumped by every invalidation, so a load that raced with one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    public PrincipalCacheService(UserRepository userRepository,
+                                 @Value("${auth.principal-cache.max-entries:10000}") int maxEntries,
+                                 @Value("${auth.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.principals = new BoundedCache<>(maxEntries);
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+    
+    /**
+     * Resolve the principal for a username, loading it from the database on a miss
+     * @param username Username taken from a verified token
+     * @return the principal, or empty if the user no longer exists
+     */
+    public Optional<AuthenticatedPrincipal> resolve(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        
+        CachedPrincipal cached = principals.get(username);
+        if (cached != null) {
+            if (System.nanoTime() - cached.expiresAtNanos() < 0) {
+                return Optional.of(cached.principal());
+            }
+            principals.remove(username, cached);
+        }
+        
+        long seenInvalidations = invalidations.get();
+        
+        Optional<AuthenticatedPrincipal> loaded = userRepository.findByUsername(username)
+                .map(user -> new AuthenticatedPrincipal(user.getUserId(), user.getUsername(), user.getRole()));
+        
+        // Missing users are not cached so a later registration is picked up immediately
+        if (loaded.isPresent()) {
+            CachedPrincipal entry = new CachedPrincipal(loaded.get(), System.nanoTime() + ttlNanos);
+            principals.put(username, entry);
+            // An invalidation that started before the put may have missed it, so undo it ourselves
+            if (invalidations.get() != seenInvalidations) {
+                principals.remove(username, entry);
+            }
+        }
+        return loaded;
+    }
+    
+    /**
+     * Drop any cached principal for the user, whatever username it was cached under
+     * @param userId User whose username or role changed
+     */
+    public void invalidateUser(Integer userId) {
+        invalidations.incrementAndGet();
+        principals.removeIf((username, entry) -> entry.principal().getUserId().equals(userId));
+    }
+    
+    /**
+     * Drop the cached principal for a username
+     * @param username Username to evict
+     */
+    public void invalidate(String username) {
+        if (username != null) {
+            invalidations.incrementAndGet();
+            principals.remove(username);
+        }
+    }
+    
+    private record CachedPrincipal(AuthenticatedPrincipal principal, long expiresAtNanos) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.shopedge.backend.services;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated product listing: the sort key and product id of the last
+ * row returned. Clients only ever see it as an opaque URL-safe string.
+ */
+final class ProductCursor {
+
+    static final String SORT_ID = "id";
+    static final String SORT_PRICE = "price";
+
+    private final String sort;
+    private final Integer categoryId;
+    private final BigDecimal lastPrice;
+    private final Integer lastProductId;
+
+    ProductCursor(String sort, Integer categoryId, BigDecimal lastPrice, Integer lastProductId) {
+        this.sort = sort;
+        this.categoryId = categoryId;
+        this.lastPrice = lastPrice;
+        this.lastProductId = lastProductId;
+    }
+
+    String getSort() {
+        return sort;
+    }
+
+    Integer getCategoryId() {
+        return categoryId;
+    }
+
+    BigDecimal getLastPrice() {
+        return lastPrice;
+    }
+
+    Integer getLastProductId() {
+        return lastProductId;
+    }
+
+    String encode() {
+        String raw = sort + "|" + (categoryId != null ? categoryId : "") + "|"
+                + (lastPrice != null ? lastPrice.toPlainString() : "") + "|" + lastProductId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by encode
+     */
+    static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String sort = parts[0];
+            if (!SORT_ID.equals(sort) && !SORT_PRICE.equals(sort)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Integer categoryId = parts[1].isEmpty() ? null : Integer.valueOf(parts[1]);
+            BigDecimal lastPrice = parts[2].isEmpty() ? null : new BigDecimal(parts[2]);
+            if (SORT_PRICE.equals(sort) && lastPrice == null) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ProductCursor(sort, categoryId, lastPrice, Integer.valueOf(parts[3]));
+        } catch (IllegalArgumentException e) {
+            // Covers bad Base64 and NumberFormatException as well
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
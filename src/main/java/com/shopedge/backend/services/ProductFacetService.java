@@ -0,0 +1,247 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.DTO.CatalogProduct;
+import com.shopedge.backend.DTO.FacetResult;
+import com.shopedge.backend.entities.Category;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Faceted filtering over the catalog snapshot.
+ *
+ * Each snapshot gets a derived index: prices as long cents sorted alongside product
+ * positions, a bitset per category and an in-stock bitset. A query turns every filter into
+ * a bitset and combines them with AND/OR, so no SQL is issued per filter combination.
+ * The index is rebuilt lazily whenever a new snapshot is swapped in.
+ */
+@Service
+public class ProductFacetService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final long[] priceBucketBoundsCents;
+
+    private volatile FacetIndex index;
+
+    public ProductFacetService(CatalogSnapshotService catalogSnapshotService,
+                               @Value("${catalog.facets.price-buckets:500,1000,5000,10000}") String priceBuckets) {
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.priceBucketBoundsCents = Arrays.stream(priceBuckets.split(","))
+                .map(String::trim)
+                .filter(bound -> !bound.isEmpty())
+                .mapToLong(bound -> toCents(new BigDecimal(bound)))
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * Filter the catalog and count facet values
+     * @param categoryNames Categories to include (OR); null or empty for all
+     * @param minPrice Inclusive lower price bound, or null
+     * @param maxPrice Inclusive upper price bound, or null
+     * @param inStockOnly Only products with stock above zero
+     * @param offset Index of the first product to return
+     * @param limit Number of products to return, capped at 100
+     * @throws IllegalArgumentException if a category does not exist or the price range is inverted
+     */
+    public FacetResult query(Collection<String> categoryNames, BigDecimal minPrice, BigDecimal maxPrice,
+                             boolean inStockOnly, int offset, int limit) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("minPrice cannot be greater than maxPrice");
+        }
+        FacetIndex current = getIndex();
+        int size = current.products.size();
+
+        BitSet priceFilter = current.priceRange(
+                minPrice != null ? toCents(minPrice) : Long.MIN_VALUE,
+                maxPrice != null ? toCents(maxPrice) : Long.MAX_VALUE);
+
+        BitSet categoryFilter;
+        if (categoryNames == null || categoryNames.isEmpty()) {
+            categoryFilter = current.all;
+        } else {
+            categoryFilter = new BitSet(size);
+            for (String name : categoryNames) {
+                BitSet bits = current.byCategory.get(name);
+                if (bits == null) {
+                    throw new IllegalArgumentException("Category not found: " + name);
+                }
+                categoryFilter.or(bits);
+            }
+        }
+
+        BitSet stockFilter = inStockOnly ? current.inStock : current.all;
+
+        BitSet matches = and(priceFilter, categoryFilter, stockFilter);
+
+        // Disjunctive counts: each facet ignores its own filter
+        BitSet priceAndStock = and(priceFilter, stockFilter);
+        Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+        for (Map.Entry<String, BitSet> entry : current.byCategory.entrySet()) {
+            categoryCounts.put(entry.getKey(), intersectionCount(priceAndStock, entry.getValue()));
+        }
+
+        int inStockCount = intersectionCount(and(priceFilter, categoryFilter), current.inStock);
+
+        BitSet categoryAndStock = and(categoryFilter, stockFilter);
+        Map<String, Integer> priceRangeCounts = new LinkedHashMap<>();
+        long lower = Long.MIN_VALUE;
+        for (int i = 0; i <= priceBucketBoundsCents.length; i++) {
+            long upper = i < priceBucketBoundsCents.length ? priceBucketBoundsCents[i] : Long.MAX_VALUE;
+            // Buckets are [lower, upper) in cents
+            BitSet bucket = current.priceRange(lower, upper == Long.MAX_VALUE ? upper : upper - 1);
+            priceRangeCounts.put(bucketLabel(lower, upper), intersectionCount(categoryAndStock, bucket));
+            lower = upper;
+        }
+
+        int pageSize = Math.max(0, Math.min(limit, MAX_PAGE_SIZE));
+        List<CatalogProduct> page = new ArrayList<>(pageSize);
+        int skipped = 0;
+        for (int i = matches.nextSetBit(0); i >= 0 && page.size() < pageSize; i = matches.nextSetBit(i + 1)) {
+            if (skipped++ >= offset) {
+                page.add(current.products.get(i));
+            }
+        }
+
+        return new FacetResult(matches.cardinality(), page, categoryCounts, inStockCount, priceRangeCounts);
+    }
+
+    private FacetIndex getIndex() {
+        CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
+        FacetIndex current = index;
+        if (current == null || current.products != snapshot.getProducts()) {
+            current = new FacetIndex(snapshot);
+            index = current;
+        }
+        return current;
+    }
+
+    private static BitSet and(BitSet first, BitSet... others) {
+        BitSet result = (BitSet) first.clone();
+        for (BitSet other : others) {
+            result.and(other);
+        }
+        return result;
+    }
+
+    private static int intersectionCount(BitSet a, BitSet b) {
+        BitSet copy = (BitSet) a.clone();
+        copy.and(b);
+        return copy.cardinality();
+    }
+
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    /**
+     * Convert to cents, clamping amounts beyond the long range so absurd price bounds just match nothing or everything
+     */
+    private static long toCents(BigDecimal amount) {
+        BigDecimal cents = amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2);
+        return cents.max(MIN_CENTS).min(MAX_CENTS).longValue();
+    }
+
+    private static String bucketLabel(long lowerCents, long upperCents) {
+        String lower = lowerCents == Long.MIN_VALUE ? "0" : BigDecimal.valueOf(lowerCents, 2).stripTrailingZeros().toPlainString();
+        if (upperCents == Long.MAX_VALUE) {
+            return lower + "+";
+        }
+        return lower + "-" + BigDecimal.valueOf(upperCents, 2).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Facet structures for one snapshot. Bit i refers to snapshot product i.
+     */
+    private static final class FacetIndex {
+        private final List<CatalogProduct> products;
+        private final long[] sortedCents;
+        private final int[] positionsByPrice;
+        private final Map<String, BitSet> byCategory;
+        private final BitSet inStock;
+        private final BitSet all;
+
+        FacetIndex(CatalogSnapshot snapshot) {
+            this.products = snapshot.getProducts();
+            int size = products.size();
+
+            this.byCategory = new LinkedHashMap<>();
+            for (Category category : snapshot.getCategories()) {
+                byCategory.put(category.getCategoryName(), new BitSet(size));
+            }
+            this.inStock = new BitSet(size);
+            this.all = new BitSet(size);
+            all.set(0, size);
+
+            long[] cents = new long[size];
+            Integer[] order = new Integer[size];
+            Map<String, BitSet> extraCategories = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                CatalogProduct product = products.get(i);
+                cents[i] = product.getPrice() != null ? toCents(product.getPrice()) : 0L;
+                order[i] = i;
+                if (product.getStock() != null && product.getStock() > 0) {
+                    inStock.set(i);
+                }
+                if (product.getCategoryName() != null) {
+                    BitSet bits = byCategory.get(product.getCategoryName());
+                    if (bits == null) {
+                        bits = extraCategories.computeIfAbsent(product.getCategoryName(), name -> new BitSet(size));
+                    }
+                    bits.set(i);
+                }
+            }
+            byCategory.putAll(extraCategories);
+
+            Arrays.sort(order, (a, b) -> Long.compare(cents[a], cents[b]));
+            this.sortedCents = new long[size];
+            this.positionsByPrice = new int[size];
+            for (int i = 0; i < size; i++) {
+                positionsByPrice[i] = order[i];
+                sortedCents[i] = cents[order[i]];
+            }
+        }
+
+        /**
+         * Products priced within [minCents, maxCents], found by binary search over the sorted prices
+         */
+        BitSet priceRange(long minCents, long maxCents) {
+            BitSet bits = new BitSet(products.size());
+            if (minCents == Long.MIN_VALUE && maxCents == Long.MAX_VALUE) {
+                bits.or(all);
+                return bits;
+            }
+            int from = lowerBound(minCents);
+            int to = lowerBound(maxCents == Long.MAX_VALUE ? maxCents : maxCents + 1);
+            for (int i = from; i < to; i++) {
+                bits.set(positionsByPrice[i]);
+            }
+            return bits;
+        }
+
+        private int lowerBound(long cents) {
+            int low = 0;
+            int high = sortedCents.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedCents[mid] < cents) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
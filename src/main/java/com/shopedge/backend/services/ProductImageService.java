@@ -0,0 +1,75 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.entities.ProductImage;
+import com.shopedge.backend.repositories.ProductImageRepository;
+import com.shopedge.backend.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch image lookups, so callers rendering many products issue one query per chunk
+ * of product IDs instead of one query per product.
+ */
+@Service
+public class ProductImageService {
+
+    // Keeps the IN list well inside MySQL packet and planner limits
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageService.class);
+
+    private final ProductImageRepository productImageRepository;
+    private final ProductRepository productRepository;
+
+    public ProductImageService(ProductImageRepository productImageRepository,
+                               ProductRepository productRepository) {
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Load image URLs for a set of products
+     * @param productIds Product IDs; duplicates and nulls are ignored
+     * @return image URLs per product ID in insertion order; products without images are absent
+     */
+    public Map<Integer, List<String>> getImageUrls(Collection<Integer> productIds) {
+        Map<Integer, List<String>> imageUrls = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        ids.remove(null);
+
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IDS_PER_QUERY, ids.size()));
+            for (ProductImage image : productImageRepository.findByProductIds(chunk)) {
+                imageUrls.computeIfAbsent(image.getProduct().getProductId(), id -> new ArrayList<>())
+                        .add(image.getImageUrl());
+            }
+        }
+        return imageUrls;
+    }
+
+    /**
+     * Populate Product.primaryImageUrl for rows created before the column existed.
+     * New products get it from AdminProductService, so this only finds work once.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillPrimaryImages() {
+        try {
+            int updated = productRepository.backfillPrimaryImageUrls();
+            if (updated > 0) {
+                logger.info("Backfilled primary image URL for {} products", updated);
+            }
+        } catch (Exception e) {
+            logger.warn("Primary image backfill failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.shopedge.backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopedge.backend.DTO.CatalogProduct;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Pre-rendered JSON for each catalog product, plain and as raw deflate blocks.
+ *
+ * Listings are assembled by concatenating fragments, without running Jackson or the
+ * compressor per request. Each fragment is deflated on its own and ends with a sync flush,
+ * so the compressed fragments can be spliced into one deflate stream; the listing is
+ * wrapped in a single gzip member whose CRC is combined from the per-fragment CRCs.
+ * A fragment is reused for as long as the snapshot keeps the same CatalogProduct
+ * instance, which it does for unchanged products.
+ */
+@Service
+public class ProductJsonCache {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    // Empty fixed-Huffman block with BFINAL set, closing the spliced deflate stream
+    private static final byte[] FINAL_BLOCK = {0x03, 0x00};
+    // CRC-32 operator for appending one zero bit, then one zero byte (see zlib crc32_combine)
+    private static final int[] ZERO_BYTE_OPERATOR = zeroByteOperator();
+
+    private static final byte[] COMMA = {','};
+    private static final Deflated COMMA_DEFLATED = deflate(COMMA);
+
+    private final ObjectMapper objectMapper;
+    private final Map<Integer, Fragment> fragments = new ConcurrentHashMap<>();
+
+    private volatile List<CatalogProduct> prunedFor;
+
+    public ProductJsonCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Assemble a JSON document of the form prefix + [product, product, ...] + suffix
+     * @param prefix JSON written before the product array, ending with the array's opening bracket
+     * @param products Products to include, in order
+     * @param suffix JSON written after the product array, starting with its closing bracket
+     * @param gzip Whether to return a gzip stream instead of plain JSON
+     */
+    public byte[] render(byte[] prefix, List<CatalogProduct> products, byte[] suffix, boolean gzip) {
+        if (gzip) {
+            GzipMember member = new GzipMember(estimateSize(products, true));
+            member.append(deflate(prefix));
+            boolean first = true;
+            for (CatalogProduct product : products) {
+                if (!first) {
+                    member.append(COMMA_DEFLATED);
+                }
+                member.append(fragmentFor(product).deflated());
+                first = false;
+            }
+            member.append(deflate(suffix));
+            return member.finish();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(estimateSize(products, false));
+        out.writeBytes(prefix);
+        boolean first = true;
+        for (CatalogProduct product : products) {
+            if (!first) {
+                out.writeBytes(COMMA);
+            }
+            out.writeBytes(fragmentFor(product).json());
+            first = false;
+        }
+        out.writeBytes(suffix);
+        return out.toByteArray();
+    }
+
+    /**
+     * Drop fragments of products that are no longer in the catalog
+     * @param snapshot The snapshot currently being served
+     */
+    public void prune(CatalogSnapshot snapshot) {
+        if (prunedFor == snapshot.getProducts()) {
+            return;
+        }
+        fragments.keySet().removeIf(productId -> snapshot.getProduct(productId) == null);
+        prunedFor = snapshot.getProducts();
+    }
+
+    private Fragment fragmentFor(CatalogProduct product) {
+        Fragment fragment = fragments.get(product.getProductId());
+        if (fragment == null || fragment.source() != product) {
+            byte[] json = toJson(product);
+            fragment = new Fragment(product, json, deflate(json));
+            fragments.put(product.getProductId(), fragment);
+        }
+        return fragment;
+    }
+
+    private byte[] toJson(CatalogProduct product) {
+        Map<String, Object> productDetails = new LinkedHashMap<>();
+        productDetails.put("product_id", product.getProductId());
+        productDetails.put("name", product.getName());
+        productDetails.put("description", product.getDescription());
+        productDetails.put("price", product.getPrice());
+        productDetails.put("stock", product.getStock());
+        productDetails.put("images", product.getImages());
+        try {
+            return objectMapper.writeValueAsString(productDetails).getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize product " + product.getProductId(), e);
+        }
+    }
+
+    private int estimateSize(List<CatalogProduct> products, boolean gzip) {
+        return 256 + products.size() * (gzip ? 192 : 320);
+    }
+
+    /**
+     * Compress into non-final raw deflate blocks ending on a byte boundary, so the result can be
+     * followed by any other such output in the same stream
+     */
+    private static Deflated deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 32);
+            byte[] buffer = new byte[Math.max(64, data.length / 2 + 32)];
+            int written;
+            do {
+                written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, written);
+            } while (written == buffer.length);
+
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            return new Deflated(out.toByteArray(), (int) crc.getValue(), data.length, shiftOperator(data.length));
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @return the operator that advances a CRC-32 over the given number of zero bytes
+     */
+    private static int[] shiftOperator(long bytes) {
+        int[] result = new int[32];
+        for (int i = 0; i < 32; i++) {
+            result[i] = 1 << i;
+        }
+        int[] power = ZERO_BYTE_OPERATOR;
+        while (bytes != 0) {
+            if ((bytes & 1) != 0) {
+                result = multiply(power, result);
+            }
+            bytes >>>= 1;
+            if (bytes != 0) {
+                power = multiply(power, power);
+            }
+        }
+        return result;
+    }
+
+    private static int[] zeroByteOperator() {
+        int[] zeroBit = new int[32];
+        zeroBit[0] = 0xEDB88320;
+        for (int i = 1; i < 32; i++) {
+            zeroBit[i] = 1 << (i - 1);
+        }
+        int[] operator = zeroBit;
+        for (int i = 0; i < 3; i++) {
+            operator = multiply(operator, operator);
+        }
+        return operator;
+    }
+
+    private static int[] multiply(int[] a, int[] b) {
+        int[] product = new int[32];
+        for (int i = 0; i < 32; i++) {
+            product[i] = apply(a, b[i]);
+        }
+        return product;
+    }
+
+    private static int apply(int[] operator, int vector) {
+        int sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= operator[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * One gzip member assembled from pre-deflated pieces
+     */
+    private static final class GzipMember {
+        private final ByteArrayOutputStream out;
+        private int crc;
+        private long length;
+
+        GzipMember(int estimatedSize) {
+            out = new ByteArrayOutputStream(estimatedSize);
+            out.writeBytes(GZIP_HEADER);
+        }
+
+        void append(Deflated piece) {
+            out.writeBytes(piece.data());
+            // crc32_combine: advance the running CRC over the piece's length, then mix in its own CRC
+            crc = apply(piece.crcShift(), crc) ^ piece.crc();
+            length += piece.length();
+        }
+
+        byte[] finish() {
+            out.writeBytes(FINAL_BLOCK);
+            writeIntLE(crc);
+            writeIntLE((int) length);
+            return out.toByteArray();
+        }
+
+        private void writeIntLE(int value) {
+            out.write(value);
+            out.write(value >>> 8);
+            out.write(value >>> 16);
+            out.write(value >>> 24);
+        }
+    }
+
+    private record Deflated(byte[] data, int crc, int length, int[] crcShift) {
+    }
+
+    private record Fragment(CatalogProduct source, byte[] json, Deflated deflated) {
+    }
+}
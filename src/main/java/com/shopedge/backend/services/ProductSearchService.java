@@ -0,0 +1,257 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.DTO.CatalogProduct;
+import com.shopedge.backend.DTO.ProductView;
+import com.shopedge.backend.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index over product names and descriptions.
+ *
+ * Terms live in a sorted concurrent map so prefix matches are a range scan, and each posting
+ * holds a precomputed field weight (name hits count more than description hits). Admin changes
+ * are applied incrementally after commit; a periodic full rebuild from the catalog snapshot,
+ * skipped while the snapshot version is unchanged, picks up changes made on other instances. Queries never touch the database.
+ */
+@Service
+public class ProductSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float PREFIX_PENALTY = 0.5f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_RESULTS = 100;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductRepository productRepository;
+
+    private volatile Index index;
+    // Version of the snapshot the current index was built from
+    private volatile long builtVersion = -1;
+
+    public ProductSearchService(CatalogSnapshotService catalogSnapshotService,
+                                ProductRepository productRepository) {
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Search products by name and description
+     * @param query Free text; every word must match a term exactly or as a prefix
+     * @param limit Maximum number of results, capped at 100
+     * @return matching products, best match first
+     */
+    public List<CatalogProduct> search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Index current = getIndex();
+        Map<Integer, Float> scores = null;
+        for (String token : new HashSet<>(queryTokens)) {
+            Map<Integer, Float> tokenScores = current.scoreToken(token);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                // Every query word has to match
+                Map<Integer, Float> combined = new HashMap<>();
+                for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+                    Float other = tokenScores.get(entry.getKey());
+                    if (other != null) {
+                        combined.put(entry.getKey(), entry.getValue() + other);
+                    }
+                }
+                scores = combined;
+            }
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Map.Entry<Integer, Float>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int byScore = Float.compare(b.getValue(), a.getValue());
+            return byScore != 0 ? byScore : Integer.compare(a.getKey(), b.getKey());
+        });
+
+        CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
+        int max = Math.max(1, Math.min(limit, MAX_RESULTS));
+        List<CatalogProduct> results = new ArrayList<>(Math.min(max, ranked.size()));
+        for (Map.Entry<Integer, Float> entry : ranked) {
+            CatalogProduct product = snapshot.getProduct(entry.getKey());
+            if (product != null) {
+                results.add(product);
+                if (results.size() == max) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getProductId() == null || index == null) {
+            rebuild();
+            return;
+        }
+        try {
+            // Read the committed row; the snapshot may not have been rebuilt for this change yet
+            Optional<ProductView> product = productRepository.findViewById(event.getProductId());
+            synchronized (this) {
+                if (product.isPresent()) {
+                    index.put(product.get().getProductId(), product.get().getName(), product.get().getDescription());
+                } else {
+                    index.remove(event.getProductId());
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Search index update failed for product {}: {}", event.getProductId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Periodic version check so changes made through other instances are searchable too
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-interval-ms:60000}",
+               initialDelayString = "${catalog.snapshot.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            if (index != null && catalogSnapshotService.getSnapshot().getVersion() == builtVersion) {
+                return;
+            }
+            rebuild();
+        } catch (Exception e) {
+            logger.warn("Search index rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    private Index getIndex() {
+        Index current = index;
+        return current != null ? current : rebuild();
+    }
+
+    private synchronized Index rebuild() {
+        CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
+        Index fresh = new Index();
+        for (CatalogProduct product : snapshot.getProducts()) {
+            fresh.put(product.getProductId(), product.getName(), product.getDescription());
+        }
+        index = fresh;
+        builtVersion = snapshot.getVersion();
+        return fresh;
+    }
+
+    /**
+     * Lowercase and split on anything that is not a letter or digit
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Term to (product ID to weight) postings plus the reverse map needed for removal.
+     * Readers scan the concurrent maps without locking; writers are serialized by the service.
+     */
+    private static final class Index {
+        private final ConcurrentSkipListMap<String, Map<Integer, Float>> postings = new ConcurrentSkipListMap<>();
+        private final Map<Integer, Set<String>> termsByProduct = new ConcurrentHashMap<>();
+
+        void put(Integer productId, String name, String description) {
+            remove(productId);
+
+            Map<String, Float> weights = new HashMap<>();
+            for (String token : tokenize(name)) {
+                weights.merge(token, NAME_WEIGHT, Float::sum);
+            }
+            for (String token : tokenize(description)) {
+                weights.merge(token, DESCRIPTION_WEIGHT, Float::sum);
+            }
+
+            for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                // Dampen repeated terms so keyword stuffing does not dominate the ranking
+                float weight = (float) (1 + Math.log(entry.getValue()));
+                postings.computeIfAbsent(entry.getKey(), term -> new ConcurrentHashMap<>())
+                        .put(productId, weight);
+            }
+            termsByProduct.put(productId, weights.keySet());
+        }
+
+        void remove(Integer productId) {
+            Set<String> terms = termsByProduct.remove(productId);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                postings.computeIfPresent(term, (key, products) -> {
+                    products.remove(productId);
+                    return products.isEmpty() ? null : products;
+                });
+            }
+        }
+
+        /**
+         * Score products for one query word: exact term hits at full weight, prefix hits at a discount,
+         * each scaled by the inverse document frequency of the matched term
+         */
+        Map<Integer, Float> scoreToken(String token) {
+            Map<Integer, Float> scores = new HashMap<>();
+            int documentCount = Math.max(1, termsByProduct.size());
+
+            NavigableMap<String, Map<Integer, Float>> matches =
+                    postings.subMap(token, true, token + Character.MAX_VALUE, false);
+            int expansions = 0;
+            for (Map.Entry<String, Map<Integer, Float>> entry : matches.entrySet()) {
+                // The exact term sorts first in the range, so stopping early never drops it
+                boolean exact = entry.getKey().equals(token);
+                if (!exact && ++expansions > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                Map<Integer, Float> products = entry.getValue();
+                float idf = (float) Math.log(1 + (double) documentCount / Math.max(1, products.size()));
+                float factor = exact ? idf : idf * PREFIX_PENALTY;
+                for (Map.Entry<Integer, Float> posting : products.entrySet()) {
+                    // Take the best matching term per product rather than summing every expansion
+                    scores.merge(posting.getKey(), posting.getValue() * factor, Math::max);
+                }
+            }
+            return scores;
+        }
+    }
+}
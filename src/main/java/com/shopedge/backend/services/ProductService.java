@@ -1,56 +1,94 @@
 package com.shopedge.backend.services;
 
 
+import com.shopedge.backend.DTO.CatalogProduct;
+import com.shopedge.backend.DTO.ProductPage;
+import com.shopedge.backend.DTO.ProductView;
 import com.shopedge.backend.entities.Category;
-import com.shopedge.backend.entities.Product;
-import com.shopedge.backend.entities.ProductImage;
-import com.shopedge.backend.repositories.CategoryRepository;
-import com.shopedge.backend.repositories.ProductImageRepository;
 import com.shopedge.backend.repositories.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Product read operations. Unpaged reads are served from the in-memory catalog snapshot;
+ * paged reads go to the database with keyset queries so each page costs the same.
+ */
 @Service
 public class ProductService {
     
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+    
     @Autowired
     private ProductRepository productRepository;
     
     @Autowired
-    private ProductImageRepository productImageRepository;
+    private CategoryCacheService categoryCacheService;
     
     @Autowired
-    private CategoryRepository categoryRepository;
+    private ProductImageService productImageService;
+    
+    @Autowired
+    private ProductJsonCache productJsonCache;
+    
+    @Value("${catalog.page.max-size:100}")
+    private int maxPageSize;
     
   
-    public List<Product> getProductsByCategory(String categoryName) {
+    public List<CatalogProduct> getProductsByCategory(String categoryName) {
+        CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
         if (categoryName != null && !categoryName.isEmpty()) {
-            Optional<Category> categoryOpt = categoryRepository.findByCategoryName(categoryName);
-            if (categoryOpt.isPresent()) {
-                Category category = categoryOpt.get();
-                return productRepository.findByCategory_CategoryId(category.getCategoryId());
+            List<CatalogProduct> products = snapshot.getProductsByCategoryName(categoryName);
+            if (products != null) {
+                return products;
             } else {
                 throw new RuntimeException("Category not found: " + categoryName);
             }
         } else {
-            return productRepository.findAll();
+            return snapshot.getProducts();
         }
     }
     
    
     public List<String> getProductImages(Integer productId) {
-        List<ProductImage> productImages = productImageRepository.findByProduct_ProductId(productId);
-        List<String> imageUrls = new ArrayList<>();
-        
-        for (ProductImage image : productImages) {
-            imageUrls.add(image.getImageUrl());
-        }
-        
-        return imageUrls;
+        CatalogProduct product = catalogSnapshotService.getSnapshot().getProduct(productId);
+        return product != null ? product.getImages() : Collections.emptyList();
+    }
+    
+    /**
+     * Render a product listing from pre-serialized per-product fragments
+     * @param categoryName Optional category filter
+     * @param prefix JSON before the product array, ending with "["
+     * @param suffix JSON after the product array, starting with "]"
+     * @param gzip Whether to return gzip-compressed bytes
+     * @throws RuntimeException if the category does not exist
+     */
+    public byte[] renderProductListing(String categoryName, byte[] prefix, byte[] suffix, boolean gzip) {
+        List<CatalogProduct> products = getProductsByCategory(categoryName);
+        productJsonCache.prune(catalogSnapshotService.getSnapshot());
+        return productJsonCache.render(prefix, products, suffix, gzip);
+    }
+    
+    /**
+     * @return catalog version of the snapshot currently being served
+     */
+    public long getCatalogVersion() {
+        return catalogSnapshotService.getSnapshot().getVersion();
     }
     
     /**
@@ -58,23 +96,165 @@ public class ProductService {
      * @return List of all categories
      */
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return categoryCacheService.getCategories();
+    }
+    
+    /**
+     * @return ETag of the current category list
+     */
+    public String getCategoriesETag() {
+        return categoryCacheService.getETag();
     }
     
     /**
      * Get product by ID
      * @param productId The ID of the product
-     * @return Product entity if found
+     * @return Product if found
      */
-    public Optional<Product> getProductById(Integer productId) {
-        return productRepository.findById(productId);
+    public Optional<CatalogProduct> getProductById(Integer productId) {
+        return Optional.ofNullable(catalogSnapshotService.getSnapshot().getProduct(productId));
     }
     
     /**
      * Get all products
      * @return List of all products
      */
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public List<CatalogProduct> getAllProducts() {
+        return catalogSnapshotService.getSnapshot().getProducts();
+    }
+    
+    /**
+     * Get one keyset page of products
+     * @param categoryName Optional category filter; ignored when a cursor is given
+     * @param sort "id" (default) or "price"; ignored when a cursor is given
+     * @param cursor Opaque cursor from the previous page, or null for the first page
+     * @param size Requested page size, capped at catalog.page.max-size
+     * @return the page and the cursor for the next one
+     * @throws IllegalArgumentException if the sort, cursor or category is invalid
+     */
+    @Transactional(readOnly = true)
+    public ProductPage getProductPage(String categoryName, String sort, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, maxPageSize);
+        
+        ProductCursor position;
+        if (cursor != null && !cursor.isEmpty()) {
+            // The cursor carries the sort and category so pages stay consistent
+            position = ProductCursor.decode(cursor);
+        } else {
+            String sortKey = sort == null || sort.isEmpty() ? ProductCursor.SORT_ID : sort;
+            if (!ProductCursor.SORT_ID.equals(sortKey) && !ProductCursor.SORT_PRICE.equals(sortKey)) {
+                throw new IllegalArgumentException("Unsupported sort: " + sort);
+            }
+            Integer categoryId = null;
+            if (categoryName != null && !categoryName.isEmpty()) {
+                categoryId = findCategoryId(categoryName);
+            }
+            position = new ProductCursor(sortKey, categoryId,
+                    ProductCursor.SORT_PRICE.equals(sortKey) ? BigDecimal.valueOf(-1) : null, 0);
+        }
+        
+        // Fetch one extra row to learn whether another page follows
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        Integer categoryId = position.getCategoryId();
+        List<ProductView> rows;
+        if (ProductCursor.SORT_PRICE.equals(position.getSort())) {
+            rows = categoryId == null
+                    ? productRepository.findPageOrderByPrice(position.getLastPrice(), position.getLastProductId(), limit)
+                    : productRepository.findCategoryPageOrderByPrice(categoryId, position.getLastPrice(),
+                            position.getLastProductId(), limit);
+        } else {
+            rows = categoryId == null
+                    ? productRepository.findPageOrderById(position.getLastProductId(), limit)
+                    : productRepository.findCategoryPageOrderById(categoryId, position.getLastProductId(), limit);
+        }
+        
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        
+        Map<Integer, List<String>> images = productImageService.getImageUrls(
+                rows.stream().map(ProductView::getProductId).toList());
+        List<CatalogProduct> products = new ArrayList<>(rows.size());
+        for (ProductView product : rows) {
+            products.add(toCatalogProduct(product, images.getOrDefault(product.getProductId(), Collections.emptyList())));
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            ProductView last = rows.get(rows.size() - 1);
+            nextCursor = new ProductCursor(position.getSort(), categoryId,
+                    ProductCursor.SORT_PRICE.equals(position.getSort()) ? last.getPrice() : null,
+                    last.getProductId()).encode();
+        }
+        return new ProductPage(products, nextCursor);
+    }
+    
+    /**
+     * Resolve a category name for streaming, before any output is written
+     * @param categoryName Category name, or null/empty for the whole catalog
+     * @return category ID, or null for the whole catalog
+     * @throws IllegalArgumentException if the category does not exist
+     */
+    public Integer findCategoryId(String categoryName) {
+        if (categoryName == null || categoryName.isEmpty()) {
+            return null;
+        }
+        Integer categoryId = categoryCacheService.findCategoryId(categoryName);
+        if (categoryId == null) {
+            throw new IllegalArgumentException("Category not found: " + categoryName);
+        }
+        return categoryId;
+    }
+    
+    /**
+     * Read products straight from a database cursor and hand them over one at a time.
+     * Only the product being assembled is held in memory, whatever the catalog size.
+     * Category fields are not populated on the products passed to the consumer.
+     * @param categoryId Category ID, or null for the whole catalog
+     * @param consumer Receives each product in product ID order
+     */
+    @Transactional(readOnly = true)
+    public void streamProducts(Integer categoryId, Consumer<CatalogProduct> consumer) {
+        try (Stream<Object[]> rows = categoryId == null
+                ? productRepository.streamCatalogRows()
+                : productRepository.streamCategoryRows(categoryId)) {
+            Iterator<Object[]> iterator = rows.iterator();
+            Object[] current = null;
+            List<String> images = new ArrayList<>();
+            
+            // Rows arrive ordered by product, one per image, so emit a product when the ID changes
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                if (current != null && !current[0].equals(row[0])) {
+                    consumer.accept(toCatalogProduct(current, images));
+                    images.clear();
+                }
+                current = row;
+                if (row[5] != null) {
+                    images.add((String) row[5]);
+                }
+            }
+            if (current != null) {
+                consumer.accept(toCatalogProduct(current, images));
+            }
+        }
+    }
+    
+    private CatalogProduct toCatalogProduct(Object[] row, List<String> images) {
+        return new CatalogProduct((Integer) row[0], (String) row[1], (String) row[2],
+                (BigDecimal) row[3], (Integer) row[4], null, null, images);
+    }
+    
+    private CatalogProduct toCatalogProduct(ProductView product, List<String> images) {
+        return new CatalogProduct(
+                product.getProductId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getStock(),
+                product.getCategoryId(),
+                product.getCategoryName(),
+                images);
     }
-}
\ No newline at end of file
+}
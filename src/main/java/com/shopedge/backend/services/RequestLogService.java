@@ -0,0 +1,180 @@
+package com.shopedge.backend.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous request log for the authentication path.
+ *
+ * Request threads only drop an event into a bounded ring buffer; a single background
+ * thread writes them out through SLF4J as key=value lines. When the buffer is full the
+ * event is discarded and counted rather than blocking the caller. Request events are
+ * sampled per path prefix ("prefix=rate" pairs, longest prefix wins).
+ *
+ * Callers must never pass tokens or other credentials in any field.
+ */
+@Service
+public class RequestLogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestLogService.class);
+    private static final Logger requestLogger = LoggerFactory.getLogger("com.shopedge.backend.requestlog");
+
+    private final AtomicReferenceArray<LogEvent> ring;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long tail;
+
+    private final String[] samplePrefixes;
+    private final double[] sampleRates;
+    private final long drainIntervalNanos;
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public RequestLogService(@Value("${requestlog.buffer-size:8192}") int bufferSize,
+                             @Value("${requestlog.sampling:/=1.0}") String sampling,
+                             @Value("${requestlog.drain-interval-ms:200}") long drainIntervalMs) {
+        int capacity = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.drainIntervalNanos = drainIntervalMs * 1_000_000L;
+
+        List<String[]> rules = new ArrayList<>();
+        for (String rule : sampling.split(",")) {
+            String trimmed = rule.trim();
+            int eq = trimmed.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            rules.add(new String[]{trimmed.substring(0, eq).trim(), trimmed.substring(eq + 1).trim()});
+        }
+        rules.sort(Comparator.comparingInt((String[] rule) -> rule[0].length()).reversed());
+        this.samplePrefixes = new String[rules.size()];
+        this.sampleRates = new double[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            samplePrefixes[i] = rules.get(i)[0];
+            sampleRates[i] = Double.parseDouble(rules.get(i)[1]);
+        }
+
+        this.writer = new Thread(this::drainLoop, "request-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Record the outcome of a request, subject to the sampling rate for its path
+     * @param method HTTP method
+     * @param path Request URI
+     * @param username Authenticated username, or null
+     * @param status HTTP status sent or about to be sent
+     * @param outcome Short reason such as "ok" or "invalid_token"
+     */
+    public void logRequest(String method, String path, String username, int status, String outcome) {
+        if (!isSampled(path)) {
+            return;
+        }
+        offer(new LogEvent(System.currentTimeMillis(), "request", method, path, username, status, outcome));
+    }
+
+    /**
+     * Record an event that is not tied to a sampled request, such as a verification failure
+     * @param event Event name
+     * @param detail Free-form detail; must not contain tokens
+     */
+    public void logEvent(String event, String detail) {
+        offer(new LogEvent(System.currentTimeMillis(), event, null, null, null, 0, detail));
+    }
+
+    private boolean isSampled(String path) {
+        for (int i = 0; i < samplePrefixes.length; i++) {
+            if (path.startsWith(samplePrefixes[i])) {
+                double rate = sampleRates[i];
+                return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+            }
+        }
+        return true;
+    }
+
+    private void offer(LogEvent event) {
+        while (true) {
+            long claimed = head.get();
+            if (claimed - tail > mask) {
+                dropped.incrementAndGet();
+                return;
+            }
+            if (head.compareAndSet(claimed, claimed + 1)) {
+                ring.set((int) (claimed & mask), event);
+                return;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            drain();
+            LockSupport.parkNanos(drainIntervalNanos);
+        }
+        drain();
+    }
+
+    private void drain() {
+        long position = tail;
+        while (true) {
+            int slot = (int) (position & mask);
+            LogEvent event = ring.get(slot);
+            if (event == null) {
+                // Either empty or a producer has claimed the slot but not published yet
+                break;
+            }
+            ring.set(slot, null);
+            tail = ++position;
+            write(event);
+        }
+
+        long droppedCount = dropped.getAndSet(0);
+        if (droppedCount > 0) {
+            requestLogger.warn("event=request_log_overflow dropped={}", droppedCount);
+        }
+    }
+
+    private void write(LogEvent event) {
+        try {
+            if ("request".equals(event.type())) {
+                requestLogger.info("ts={} event=request method={} path={} user={} status={} outcome={}",
+                        event.timestampMillis(), event.method(), event.path(),
+                        event.username() == null ? "-" : event.username(), event.status(), event.detail());
+            } else {
+                requestLogger.warn("ts={} event={} detail=\"{}\"", event.timestampMillis(), event.type(), event.detail());
+            }
+        } catch (Exception e) {
+            logger.debug("Failed to write request log event: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record LogEvent(long timestampMillis, String type, String method, String path,
+                            String username, int status, String detail) {
+    }
+}
@@ -0,0 +1,315 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.repositories.CatalogVersionRepository;
+import com.shopedge.backend.repositories.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checkout-time stock accounting without row locks.
+ *
+ * Each product has an in-memory counter of sellable units, seeded from products.stock on first
+ * use. Creating an order reserves units with a compare-and-set on the counters; a verified
+ * payment commits the reservation and a failed or abandoned one returns the units. Committed
+ * sales are written behind in batches of conditional "stock = stock - ? WHERE stock >= ?"
+ * updates, so the database never goes negative even when several instances sell the same product.
+ * A sale is never dropped: if the row cannot cover it, stock is clamped at zero and the
+ * shortfall is logged as an oversell.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private static final String DECREMENT_STOCK =
+            "UPDATE products SET stock = stock - ? WHERE product_id = ? AND stock >= ?";
+    private static final String DECREMENT_STOCK_CLAMPED =
+            "UPDATE products SET stock = GREATEST(stock - ?, 0) WHERE product_id = ?";
+
+    private final ProductRepository productRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long reservationTtlNanos;
+
+    private final Map<Integer, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservationsByOrderId = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> reservedUnits = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> unflushedSales = new ConcurrentHashMap<>();
+    // Sales taken by a flush whose transaction has not committed yet
+    private final Map<Integer, AtomicInteger> flushingSales = new ConcurrentHashMap<>();
+
+    public StockReservationService(ProductRepository productRepository,
+                                   CatalogVersionRepository catalogVersionRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${stock.reservation.ttl-ms:900000}") long reservationTtlMs) {
+        this.productRepository = productRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reservationTtlNanos = reservationTtlMs * 1_000_000L;
+    }
+
+    /**
+     * @return units that can still be reserved
+     * @throws IllegalArgumentException if the product does not exist
+     */
+    public int getAvailable(Integer productId) {
+        return counter(productId).get();
+    }
+
+    /**
+     * Take units out of the available stock, all or nothing
+     * @param quantities Units per product ID
+     * @return the reservation; attach it to an order or release it
+     * @throws IllegalStateException if any product has too few units left
+     * @throws IllegalArgumentException if a product does not exist or a quantity is not positive
+     */
+    public Reservation reserve(Map<Integer, Integer> quantities) {
+        Map<Integer, Integer> taken = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+                int quantity = entry.getValue();
+                if (quantity <= 0) {
+                    throw new IllegalArgumentException("Quantity must be positive for product " + entry.getKey());
+                }
+                if (!tryTake(counter(entry.getKey()), quantity)) {
+                    throw new IllegalStateException("Insufficient stock for product " + entry.getKey());
+                }
+                add(reservedUnits, entry.getKey(), quantity);
+                taken.put(entry.getKey(), quantity);
+            }
+        } catch (RuntimeException e) {
+            giveBack(taken);
+            throw e;
+        }
+        return new Reservation(taken);
+    }
+
+    /**
+     * Hold a reservation for an order until it is committed, released or expires
+     */
+    public void attach(String orderId, Reservation reservation) {
+        reservation.expiresAtNanos = System.nanoTime() + reservationTtlNanos;
+        reservationsByOrderId.put(orderId, reservation);
+    }
+
+    /**
+     * Turn an order's reservation into a sale to be written to the database.
+     * If the reservation already expired, the units are reserved again if they are still there;
+     * otherwise the paid sale is still recorded and the counter drops to zero.
+     * Call once per order: every call records a sale.
+     * @param quantities Units per product ID, used only when the reservation is gone
+     * @return false if the order had no reservation and the stock has since run out (an oversell)
+     */
+    public boolean commit(String orderId, Map<Integer, Integer> quantities) {
+        Reservation reservation = reservationsByOrderId.remove(orderId);
+        if (reservation == null) {
+            try {
+                reservation = reserve(quantities);
+            } catch (RuntimeException e) {
+                logger.warn("Order {} paid after its stock reservation expired and stock ran out: {}", orderId, e.getMessage());
+                quantities.forEach((productId, quantity) -> {
+                    // A missing counter is reseeded later net of this sale, so only a live one is adjusted
+                    AtomicInteger counter = available.get(productId);
+                    if (counter != null) {
+                        counter.updateAndGet(units -> Math.max(0, units - quantity));
+                    }
+                    add(unflushedSales, productId, quantity);
+                });
+                return false;
+            }
+        }
+        reservation.quantities.forEach((productId, quantity) -> {
+            add(unflushedSales, productId, quantity);
+            add(reservedUnits, productId, -quantity);
+        });
+        return true;
+    }
+
+    /**
+     * Return an order's reserved units; does nothing if it has none
+     */
+    public void release(String orderId) {
+        Reservation reservation = reservationsByOrderId.remove(orderId);
+        if (reservation != null) {
+            giveBack(reservation.quantities);
+        }
+    }
+
+    /**
+     * Return the units of a reservation that was never attached to an order
+     */
+    public void release(Reservation reservation) {
+        giveBack(reservation.quantities);
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:30000}")
+    public void expireReservations() {
+        long now = System.nanoTime();
+        reservationsByOrderId.forEach((orderId, reservation) -> {
+            if (now - reservation.expiresAtNanos > 0 && reservationsByOrderId.remove(orderId, reservation)) {
+                giveBack(reservation.quantities);
+            }
+        });
+    }
+
+    /**
+     * Write committed sales to products.stock in one batch and bump the catalog version
+     */
+    @Scheduled(fixedDelayString = "${stock.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Integer, AtomicInteger> entry : unflushedSales.entrySet()) {
+            int sold = entry.getValue().get();
+            if (sold > 0) {
+                // Count the units as flushing before taking them out, so a reseed never misses them
+                add(flushingSales, entry.getKey(), sold);
+                entry.getValue().addAndGet(-sold);
+                batch.add(new Object[]{sold, entry.getKey(), sold});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Object[]> shortfalls = transactionTemplate.execute(status -> {
+                int[] counts = jdbcTemplate.batchUpdate(DECREMENT_STOCK, batch);
+                List<Object[]> uncovered = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        // The row holds less than was sold, e.g. another instance sold it too; the sale stands
+                        Object[] row = batch.get(i);
+                        int clamped = jdbcTemplate.update(DECREMENT_STOCK_CLAMPED, row[0], row[1]);
+                        uncovered.add(new Object[]{row[1], row[0], clamped});
+                    }
+                }
+                catalogVersionRepository.increment();
+                return uncovered;
+            });
+            settleFlushing(batch);
+            for (Object[] shortfall : shortfalls) {
+                Integer productId = (Integer) shortfall[0];
+                if ((Integer) shortfall[2] == 0) {
+                    logger.error("Product {} no longer exists; {} sold units could not be written", productId, shortfall[1]);
+                } else {
+                    logger.warn("Product {} oversold: stock could not cover {} sold units and was set to 0", productId, shortfall[1]);
+                }
+                available.remove(productId);
+            }
+        } catch (RuntimeException e) {
+            // Nothing was written; keep the sales for the next attempt
+            for (Object[] row : batch) {
+                add(unflushedSales, (Integer) row[1], (Integer) row[0]);
+            }
+            settleFlushing(batch);
+            logger.warn("Stock write-behind failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void settleFlushing(List<Object[]> batch) {
+        for (Object[] row : batch) {
+            add(flushingSales, (Integer) row[1], -(Integer) row[0]);
+        }
+    }
+
+    /**
+     * Forget counters of changed products so the next use reseeds them from the database
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getProductId() != null) {
+            available.remove(event.getProductId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private AtomicInteger counter(Integer productId) {
+        AtomicInteger counter = available.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        int stock = productRepository.findStockById(productId)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
+        // The database figure still includes units that are reserved or sold but not yet flushed
+        int seeded = stock - current(unflushedSales, productId) - current(flushingSales, productId)
+                - current(reservedUnits, productId);
+        return available.computeIfAbsent(productId, id -> new AtomicInteger(Math.max(0, seeded)));
+    }
+
+    private static boolean tryTake(AtomicInteger counter, int quantity) {
+        int current;
+        do {
+            current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    private void giveBack(Map<Integer, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> {
+            add(reservedUnits, productId, -quantity);
+            // A missing counter is reseeded later without this reservation, so there is nothing to return
+            AtomicInteger counter = available.get(productId);
+            if (counter != null) {
+                counter.addAndGet(quantity);
+            }
+        });
+    }
+
+    private static void add(Map<Integer, AtomicInteger> counters, Integer productId, int delta) {
+        counters.computeIfAbsent(productId, id -> new AtomicInteger()).addAndGet(delta);
+    }
+
+    private static int current(Map<Integer, AtomicInteger> counters, Integer productId) {
+        AtomicInteger counter = counters.get(productId);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * Units taken from the available stock for one checkout.
+     */
+    public static final class Reservation {
+        private final Map<Integer, Integer> quantities;
+        private volatile long expiresAtNanos;
+
+        private Reservation(Map<Integer, Integer> quantities) {
+            this.quantities = Map.copyOf(quantities);
+        }
+
+        public Map<Integer, Integer> getQuantities() {
+            return quantities;
+        }
+
+        /**
+         * @return System.nanoTime() deadline of an attached reservation
+         */
+        public long getExpiresAtNanos() {
+            return expiresAtNanos;
+        }
+    }
+}
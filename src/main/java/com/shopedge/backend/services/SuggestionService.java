@@ -0,0 +1,364 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.repositories.CatalogVersionRepository;
+import com.shopedge.backend.repositories.CategoryRepository;
+import com.shopedge.backend.repositories.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Typeahead over product and category names.
+ *
+ * Suggestions come from a trie stored in flat primitive arrays, where every node carries a
+ * precomputed top-k list, so a lookup is a walk down the prefix plus a slice copy. The trie
+ * is rebuilt on a background thread after admin catalog changes (and periodically) and
+ * swapped in with a single volatile write.
+ */
+@Service
+public class SuggestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionService.class);
+
+    public static final String TYPE_PRODUCT = "product";
+    public static final String TYPE_CATEGORY = "category";
+
+    // Categories outrank product names that share the prefix
+    private static final int CATEGORY_WEIGHT = 10;
+    private static final int PRODUCT_WEIGHT = 1;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final int topK;
+
+    private final ExecutorService builder;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile Trie trie;
+    // Catalog version read before the current trie was loaded
+    private volatile long builtVersion = -1;
+
+    public SuggestionService(ProductRepository productRepository,
+                             CategoryRepository categoryRepository,
+                             CatalogVersionRepository catalogVersionRepository,
+                             @Value("${catalog.suggest.top-k:10}") int topK) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.topK = topK;
+        this.builder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "suggest-trie-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the best completions for a prefix
+     * @param prefix Typed text, matched case-insensitively against the start of each name
+     * @param limit Maximum number of suggestions, capped at catalog.suggest.top-k
+     * @return suggestions ordered by weight, then alphabetically
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return Collections.emptyList();
+        }
+        Trie current = trie;
+        if (current == null) {
+            current = rebuild();
+        }
+        return current.lookup(prefix.stripLeading().toLowerCase(Locale.ROOT), Math.min(limit, topK));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    /**
+     * Periodic version check so names changed through other instances are suggested too
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-interval-ms:60000}",
+               initialDelayString = "${catalog.snapshot.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            long version = catalogVersionRepository.findCurrentVersion().orElse(0L);
+            if (trie != null && builtVersion == version) {
+                return;
+            }
+            scheduleRebuild();
+        } catch (Exception e) {
+            logger.warn("Suggestion trie version check failed: {}", e.getMessage());
+        }
+    }
+
+    private void scheduleRebuild() {
+        // Coalesce bursts of changes into one build; a change during a build queues exactly one more
+        if (rebuildPending.compareAndSet(false, true)) {
+            builder.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    logger.warn("Suggestion trie rebuild failed: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    private synchronized Trie rebuild() {
+        // Read the version first so a change committed while loading triggers another build
+        long version = catalogVersionRepository.findCurrentVersion().orElse(0L);
+
+        // Key by lowercase name; keep the first spelling seen and the highest weight
+        Map<String, Object[]> entries = new TreeMap<>();
+        for (String name : categoryRepository.findAllNames()) {
+            addEntry(entries, name, TYPE_CATEGORY, CATEGORY_WEIGHT);
+        }
+        for (String name : productRepository.findAllNames()) {
+            addEntry(entries, name, TYPE_PRODUCT, PRODUCT_WEIGHT);
+        }
+
+        Trie built = Trie.build(entries, topK);
+        trie = built;
+        builtVersion = version;
+        return built;
+    }
+
+    private static void addEntry(Map<String, Object[]> entries, String name, String type, int weight) {
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        String display = name.trim();
+        entries.merge(display.toLowerCase(Locale.ROOT), new Object[]{display, type, weight},
+                (current, added) -> (int) added[2] > (int) current[2] ? added : current);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * One suggested completion.
+     */
+    public record Suggestion(String text, String type) {
+    }
+
+    /**
+     * Immutable trie in left-child/right-sibling form. Node 0 is the root; children are kept in
+     * ascending character order. topStart/topCount index a shared pool of entry ids, and a node
+     * with a single child and no entry of its own reuses its child's slice.
+     */
+    private static final class Trie {
+        private final char[] label;
+        private final int[] firstChild;
+        private final int[] nextSibling;
+        private final int[] topStart;
+        private final int[] topCount;
+        private final int[] topEntries;
+        private final String[] texts;
+        private final String[] types;
+
+        private Trie(char[] label, int[] firstChild, int[] nextSibling, int[] topStart, int[] topCount,
+                     int[] topEntries, String[] texts, String[] types) {
+            this.label = label;
+            this.firstChild = firstChild;
+            this.nextSibling = nextSibling;
+            this.topStart = topStart;
+            this.topCount = topCount;
+            this.topEntries = topEntries;
+            this.texts = texts;
+            this.types = types;
+        }
+
+        List<Suggestion> lookup(String prefix, int limit) {
+            int node = 0;
+            for (int i = 0; i < prefix.length() && node >= 0; i++) {
+                node = findChild(node, prefix.charAt(i));
+            }
+            if (node < 0 || limit <= 0) {
+                return Collections.emptyList();
+            }
+            int count = Math.min(limit, topCount[node]);
+            List<Suggestion> suggestions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int entry = topEntries[topStart[node] + i];
+                suggestions.add(new Suggestion(texts[entry], types[entry]));
+            }
+            return suggestions;
+        }
+
+        private int findChild(int node, char c) {
+            for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                if (label[child] == c) {
+                    return child;
+                }
+                if (label[child] > c) {
+                    break;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param entries Lowercase key to {display text, type, weight}, in key order
+         */
+        static Trie build(Map<String, Object[]> entries, int topK) {
+            int size = entries.size();
+            String[] texts = new String[size];
+            String[] types = new String[size];
+            int[] weights = new int[size];
+
+            Builder b = new Builder();
+            int id = 0;
+            for (Map.Entry<String, Object[]> entry : entries.entrySet()) {
+                texts[id] = (String) entry.getValue()[0];
+                types[id] = (String) entry.getValue()[1];
+                weights[id] = (int) entry.getValue()[2];
+                b.insert(entry.getKey(), id);
+                id++;
+            }
+
+            // Children were appended after their parents, so walking nodes backwards visits children first
+            int nodes = b.count;
+            int[] topStart = new int[nodes];
+            int[] topCount = new int[nodes];
+            int[] pool = new int[Math.max(16, nodes)];
+            int poolSize = 0;
+            int[] candidates = new int[1];
+            for (int node = nodes - 1; node >= 0; node--) {
+                int onlyChild = b.firstChild[node];
+                if (b.entry[node] < 0 && onlyChild >= 0 && b.nextSibling[onlyChild] < 0) {
+                    topStart[node] = topStart[onlyChild];
+                    topCount[node] = topCount[onlyChild];
+                    continue;
+                }
+
+                int candidateCount = 0;
+                int needed = 1;
+                for (int child = b.firstChild[node]; child >= 0; child = b.nextSibling[child]) {
+                    needed += topCount[child];
+                }
+                if (candidates.length < needed) {
+                    candidates = new int[needed];
+                }
+                if (b.entry[node] >= 0) {
+                    candidates[candidateCount++] = b.entry[node];
+                }
+                for (int child = b.firstChild[node]; child >= 0; child = b.nextSibling[child]) {
+                    System.arraycopy(pool, topStart[child], candidates, candidateCount, topCount[child]);
+                    candidateCount += topCount[child];
+                }
+
+                int keep = selectTop(candidates, candidateCount, weights, topK);
+                if (pool.length < poolSize + keep) {
+                    pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + keep));
+                }
+                System.arraycopy(candidates, 0, pool, poolSize, keep);
+                topStart[node] = poolSize;
+                topCount[node] = keep;
+                poolSize += keep;
+            }
+
+            return new Trie(Arrays.copyOf(b.label, nodes), Arrays.copyOf(b.firstChild, nodes),
+                    Arrays.copyOf(b.nextSibling, nodes), topStart, topCount,
+                    Arrays.copyOf(pool, poolSize), texts, types);
+        }
+
+        /**
+         * Partially sort candidates so the best k come first: higher weight, then lower id
+         * (entry ids follow key order, so ties break alphabetically)
+         */
+        private static int selectTop(int[] candidates, int count, int[] weights, int k) {
+            int keep = Math.min(k, count);
+            for (int i = 0; i < keep; i++) {
+                int best = i;
+                for (int j = i + 1; j < count; j++) {
+                    int a = candidates[j];
+                    int current = candidates[best];
+                    if (weights[a] > weights[current] || (weights[a] == weights[current] && a < current)) {
+                        best = j;
+                    }
+                }
+                int swap = candidates[i];
+                candidates[i] = candidates[best];
+                candidates[best] = swap;
+            }
+            return keep;
+        }
+    }
+
+    /**
+     * Growable arrays used only while building a trie.
+     */
+    private static final class Builder {
+        char[] label = new char[64];
+        int[] firstChild = new int[64];
+        int[] lastChild = new int[64];
+        int[] nextSibling = new int[64];
+        int[] entry = new int[64];
+        int count;
+
+        Builder() {
+            newNode('\0');
+        }
+
+        /**
+         * Keys must arrive in ascending order so children end up sorted
+         */
+        void insert(String key, int entryId) {
+            int node = 0;
+            for (int i = 0; i < key.length(); i++) {
+                char c = key.charAt(i);
+                int last = lastChild[node];
+                if (last >= 0 && label[last] == c) {
+                    node = last;
+                } else {
+                    int child = newNode(c);
+                    if (last < 0) {
+                        firstChild[node] = child;
+                    } else {
+                        nextSibling[last] = child;
+                    }
+                    lastChild[node] = child;
+                    node = child;
+                }
+            }
+            entry[node] = entryId;
+        }
+
+        private int newNode(char c) {
+            if (count == label.length) {
+                int grown = count * 2;
+                label = Arrays.copyOf(label, grown);
+                firstChild = Arrays.copyOf(firstChild, grown);
+                lastChild = Arrays.copyOf(lastChild, grown);
+                nextSibling = Arrays.copyOf(nextSibling, grown);
+                entry = Arrays.copyOf(entry, grown);
+            }
+            label[count] = c;
+            firstChild[count] = -1;
+            lastChild[count] = -1;
+            nextSibling[count] = -1;
+            entry[count] = -1;
+            return count++;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.shopedge.backend.services;
+
+import com.shopedge.backend.entities.JWTRevocation;
+import com.shopedge.backend.repositories.JWTRevocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory revocation list for stateless JWT mode.
+ *
+ * Single-token revocations (logout) go into a time-bucketed Bloom filter backed by an
+ * exact set of token hashes; user-wide revocations (admin changes) are kept as a cutoff
+ * per username. Every entry is dropped once the tokens it covers have expired. Nodes share
+ * revocations through the jwt_revocations table, which each node polls for new rows.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // One Bloom filter per 15 minutes of token expiry, so whole filters age out together
+    private static final long BUCKET_WIDTH_MS = 15 * 60 * 1000L;
+    private static final int BLOOM_BITS = 1 << 20;
+    private static final int BLOOM_HASHES = 7;
+
+    // Re-read a window of recent rows so late-committing inserts on other nodes are not missed
+    private static final long POLL_OVERLAP_SECONDS = 30;
+
+    private final JWTRevocationRepository revocationRepository;
+    private final PrincipalCacheService principalCacheService;
+    private final boolean stateless;
+
+    private final Map<Long, BloomFilter> bloomBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, UserCutoff> userCutoffs = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime lastPolledAt = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public TokenRevocationService(JWTRevocationRepository revocationRepository,
+                                  PrincipalCacheService principalCacheService,
+                                  @Value("${jwt.stateless:false}") boolean stateless) {
+        this.revocationRepository = revocationRepository;
+        this.principalCacheService = principalCacheService;
+        this.stateless = stateless;
+    }
+
+    /**
+     * Revoke a single token until it expires
+     * @param tokenHash SHA-256 of the token
+     * @param expiresAt Expiry of the token
+     */
+    public void revokeToken(String tokenHash, LocalDateTime expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        applyTokenRevocation(tokenHash, toEpochMillis(expiresAt));
+        revocationRepository.save(new JWTRevocation(tokenHash, null, now, expiresAt));
+    }
+
+    /**
+     * Revoke every token issued to a username up to now. Inside a transaction, the cutoff takes
+     * effect locally once it commits, together with the change that caused it.
+     * @param username Username carried in the token subject
+     * @param tokensExpireBy Latest expiry of any token issued so far
+     */
+    public void revokeUser(String username, LocalDateTime tokensExpireBy) {
+        LocalDateTime now = LocalDateTime.now();
+        revocationRepository.save(new JWTRevocation(null, username, now, tokensExpireBy));
+        runAfterCommit(() -> applyUserRevocation(username, toEpochMillis(now), toEpochMillis(tokensExpireBy)));
+    }
+
+    /**
+     * Check whether a signature-valid token has been revoked
+     * @param tokenHash SHA-256 of the token
+     * @param username Token subject
+     * @param issuedAt Token issue time
+     * @return true if the token must be rejected
+     */
+    public boolean isRevoked(String tokenHash, String username, Instant issuedAt) {
+        UserCutoff cutoff = userCutoffs.get(username);
+        // iat has second precision, so a token issued in the same second as the cutoff is revoked too
+        if (cutoff != null && (issuedAt == null || issuedAt.toEpochMilli() <= cutoff.revokedAtMillis())) {
+            return true;
+        }
+
+        if (!mightBeRevoked(tokenHash)) {
+            return false;
+        }
+        return revokedTokens.containsKey(tokenHash);
+    }
+
+    /**
+     * Pull revocations recorded by other nodes and drop expired entries
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval-ms:5000}")
+    public void pollRevocations() {
+        if (!stateless) {
+            return;
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime since = lastPolledAt.minusSeconds(POLL_OVERLAP_SECONDS);
+
+            for (JWTRevocation revocation : revocationRepository.findActiveRevokedSince(since, now)) {
+                long expiresAtMillis = toEpochMillis(revocation.getExpiresAt());
+                if (revocation.getTokenHash() != null) {
+                    applyTokenRevocation(revocation.getTokenHash(), expiresAtMillis);
+                } else if (revocation.getUsername() != null) {
+                    applyUserRevocation(revocation.getUsername(),
+                            toEpochMillis(revocation.getRevokedAt()), expiresAtMillis);
+                }
+            }
+            lastPolledAt = now;
+
+            pruneExpired(toEpochMillis(now));
+            revocationRepository.deleteExpired(now);
+        } catch (Exception e) {
+            logger.warn("Failed to poll token revocations: {}", e.getMessage());
+        }
+    }
+
+    private void applyTokenRevocation(String tokenHash, long expiresAtMillis) {
+        revokedTokens.put(tokenHash, expiresAtMillis);
+        bloomBuckets.computeIfAbsent(expiresAtMillis / BUCKET_WIDTH_MS, bucket -> new BloomFilter())
+                .add(tokenHash);
+    }
+
+    private void applyUserRevocation(String username, long revokedAtMillis, long expiresAtMillis) {
+        UserCutoff cutoff = new UserCutoff(revokedAtMillis, expiresAtMillis);
+        UserCutoff applied = userCutoffs.merge(username, cutoff,
+                (current, update) -> update.revokedAtMillis() > current.revokedAtMillis() ? update : current);
+        if (applied == cutoff) {
+            // The revocation comes with a user change, so the cached principal may hold an old role
+            principalCacheService.invalidate(username);
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private boolean mightBeRevoked(String tokenHash) {
+        for (BloomFilter filter : bloomBuckets.values()) {
+            if (filter.mightContain(tokenHash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void pruneExpired(long nowMillis) {
+        long currentBucket = nowMillis / BUCKET_WIDTH_MS;
+        bloomBuckets.keySet().removeIf(bucket -> bucket < currentBucket);
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < nowMillis);
+        userCutoffs.values().removeIf(cutoff -> cutoff.expiresAtMillis() < nowMillis);
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record UserCutoff(long revokedAtMillis, long expiresAtMillis) {
+    }
+
+    /**
+     * Fixed-size Bloom filter over hex SHA-256 token hashes, using double hashing
+     * on two 64-bit words of the digest.
+     */
+    private static final class BloomFilter {
+        private final AtomicLongArray bits = new AtomicLongArray(BLOOM_BITS / 64);
+
+        void add(String tokenHash) {
+            long h1 = Long.parseUnsignedLong(tokenHash.substring(0, 16), 16);
+            long h2 = Long.parseUnsignedLong(tokenHash.substring(16, 32), 16);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (int) Long.remainderUnsigned(h1 + i * h2, BLOOM_BITS);
+                long mask = 1L << (bit & 63);
+                int word = bit >>> 6;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String tokenHash) {
+            long h1 = Long.parseUnsignedLong(tokenHash.substring(0, 16), 16);
+            long h2 = Long.parseUnsignedLong(tokenHash.substring(16, 32), 16);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (int) Long.remainderUnsigned(h1 + i * h2, BLOOM_BITS);
+                if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
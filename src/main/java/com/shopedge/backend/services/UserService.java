@@ -1,7 +1,6 @@
 package com.shopedge.backend.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.shopedge.backend.entities.User;
@@ -11,13 +10,13 @@ import com.shopedge.backend.repositories.UserRepository;
 public class UserService {
 	
 	private final UserRepository userRepository;
-	private final BCryptPasswordEncoder passwordEncoder;
+	private final PasswordHashingService passwordHashingService;
 	
 	
 	@Autowired
-	public UserService (UserRepository userRepository) {
+	public UserService (UserRepository userRepository, PasswordHashingService passwordHashingService) {
 		this.userRepository = userRepository;
-		this.passwordEncoder = new BCryptPasswordEncoder();
+		this.passwordHashingService = passwordHashingService;
 	}
 	
 	
@@ -30,7 +29,7 @@ public class UserService {
 			throw new RuntimeException("Email is already registered");
 		}
 	
-		user.setPassword (passwordEncoder.encode(user.getPassword()));
+		user.setPassword (passwordHashingService.encode(user.getPassword()));
 		return userRepository.save(user);
 	}
 	